@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.gateway.bench;
+
+import com.github.dimitryivaniuta.gateway.projection.model.CustomerView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of {@link CustomerView#applyUpdate} for a real change vs. a version-only bump.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomerViewApplyUpdateBenchmark {
+
+    private CustomerView view;
+    private long version;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        view = CustomerView.create(UUID.randomUUID(), "Alice", "alice@example.com", 0);
+        version = 0;
+    }
+
+    @Benchmark
+    public boolean changedFields() {
+        version++;
+        return view.applyUpdate((version & 1) == 0 ? "Alice" : "Alicia", "alice@example.com", version);
+    }
+
+    @Benchmark
+    public boolean versionOnly() {
+        version++;
+        return view.applyUpdate(null, null, version);
+    }
+}
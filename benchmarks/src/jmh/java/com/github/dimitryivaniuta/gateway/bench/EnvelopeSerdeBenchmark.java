@@ -0,0 +1,86 @@
+package com.github.dimitryivaniuta.gateway.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.common.event.wire.BinaryCustomerEventCodec;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wire cost of one event as configured in the services: Spring Kafka {@code JsonSerializer} on the
+ * command side and {@code JsonDeserializer} (no type headers, default type = envelope) on the projection side,
+ * next to the compact {@link BinaryCustomerEventCodec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EnvelopeSerdeBenchmark {
+
+    private JsonSerializer<CustomerEventEnvelope> serializer;
+    private JsonDeserializer<CustomerEventEnvelope> deserializer;
+    private CustomerEventEnvelope envelope;
+    private byte[] bytes;
+    private BinaryCustomerEventCodec binary;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        serializer = new JsonSerializer<>();
+        serializer.setAddTypeInfo(false);
+
+        deserializer = new JsonDeserializer<>();
+        deserializer.configure(Map.of(
+                JsonDeserializer.TRUSTED_PACKAGES, "com.github.dimitryivaniuta.*",
+                JsonDeserializer.USE_TYPE_INFO_HEADERS, false,
+                JsonDeserializer.VALUE_DEFAULT_TYPE, CustomerEventEnvelope.class.getName()
+        ), false);
+
+        envelope = CustomerEventEnvelope.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateId(UUID.randomUUID().toString())
+                .eventType("CustomerUpdated")
+                .version(42)
+                .timestampUtcMillis(System.currentTimeMillis())
+                .actor("command-service")
+                .payload(new ObjectMapper().createObjectNode()
+                        .put("name", "Alice Example")
+                        .put("email", "alice@example.com"))
+                .build();
+        bytes = serializer.serialize(CustomerTopics.EVENTS, envelope);
+
+        binary = new BinaryCustomerEventCodec();
+        binaryBytes = binary.encode(envelope);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(CustomerTopics.EVENTS, envelope);
+    }
+
+    @Benchmark
+    public CustomerEventEnvelope deserialize() {
+        return deserializer.deserialize(CustomerTopics.EVENTS, bytes);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binary.encode(envelope);
+    }
+
+    @Benchmark
+    public CustomerEventEnvelope deserializeBinary() {
+        return binary.decode(binaryBytes);
+    }
+}
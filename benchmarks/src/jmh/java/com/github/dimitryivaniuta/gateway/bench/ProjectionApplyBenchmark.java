@@ -0,0 +1,110 @@
+package com.github.dimitryivaniuta.gateway.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.projection.model.CustomerView;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewRepository;
+import com.github.dimitryivaniuta.gateway.projection.repo.ProjectionOffsetRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event projection throughput through the real {@link CustomerViewRepository#applyEvent} (JPA, one
+ * transaction per event) against in-process H2 in PostgreSQL mode.
+ * <p>
+ * H2 is a stand-in: it shows the ORM/transaction overhead and relative regressions, not Postgres latency.
+ * The set-based {@code applyBatch} path uses Postgres-only SQL ({@code unnest}, {@code ON CONFLICT ... WHERE})
+ * and is therefore not covered here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionApplyBenchmark {
+
+    private static final int AGGREGATES = 1_000;
+
+    private ConfigurableApplicationContext ctx;
+    private CustomerViewRepository repository;
+    private UUID[] ids;
+    private long[] versions;
+    private ObjectNode payload;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        ctx = new SpringApplicationBuilder(BenchConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                                + "INIT=CREATE SCHEMA IF NOT EXISTS read",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        repository = ctx.getBean(CustomerViewRepository.class);
+
+        payload = new ObjectMapper().createObjectNode().put("name", "Alice").put("email", "alice@example.com");
+        ids = new UUID[AGGREGATES];
+        versions = new long[AGGREGATES];
+        for (int i = 0; i < AGGREGATES; i++) {
+            ids[i] = UUID.randomUUID();
+            ObjectNode p = payload.deepCopy().put("email", "c" + i + "@example.com");
+            repository.applyEvent(event(ids[i], "CustomerCreated", 0, p));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    /**
+     * Next version for a rotating aggregate: full read + version check + dirty-checked update + commit.
+     */
+    @Benchmark
+    public void applyUpdate() {
+        int i = cursor++ % AGGREGATES;
+        ObjectNode p = payload.deepCopy().put("email", "c" + i + "@example.com");
+        repository.applyEvent(event(ids[i], "CustomerUpdated", ++versions[i], p));
+    }
+
+    /**
+     * Redelivery: version already applied, so only the lookup + gate run.
+     */
+    @Benchmark
+    public void applyStale() {
+        int i = cursor++ % AGGREGATES;
+        repository.applyEvent(event(ids[i], "CustomerUpdated", 0, payload));
+    }
+
+    private static CustomerEventEnvelope event(UUID id, String type, long version, ObjectNode payload) {
+        return CustomerEventEnvelope.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateId(id.toString())
+                .eventType(type)
+                .version(version)
+                .timestampUtcMillis(System.currentTimeMillis())
+                .actor("bench")
+                .payload(payload)
+                .build();
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {KafkaAutoConfiguration.class, FlywayAutoConfiguration.class})
+    @EntityScan(basePackageClasses = CustomerView.class)
+    @Import({CustomerViewRepository.class, ProjectionOffsetRepository.class})
+    static class BenchConfig {
+    }
+}
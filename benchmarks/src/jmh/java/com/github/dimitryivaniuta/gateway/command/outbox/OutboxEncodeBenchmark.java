@@ -0,0 +1,93 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.common.event.wire.BinaryCustomerEventCodec;
+import com.github.dimitryivaniuta.gateway.common.event.wire.CustomerEventSerializer;
+import com.github.dimitryivaniuta.gateway.common.event.wire.JsonCustomerEventCodec;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publisher hot path without I/O: outbox row -> Kafka value bytes.
+ * <p>
+ * {@code treeJson} is the former path ({@code om.readTree} of the jsonb text, then serializing the tree) and is
+ * kept as the baseline; {@code passthroughJson}/{@code passthroughBinary} go through
+ * {@code OutboxPublisher.toWireEvent} and {@link CustomerEventSerializer}. Lives in the publisher's package to
+ * reach the package-private method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OutboxEncodeBenchmark {
+
+    private OutboxPublisher publisher;
+    private Outbox row;
+    private ObjectMapper om;
+    private CustomerEventSerializer json;
+    private CustomerEventSerializer binary;
+
+    @Setup
+    public void setup() {
+        // No broker is contacted: producers are created lazily on first send, which never happens here.
+        var producerFactory = new DefaultKafkaProducerFactory<String, Object>(Map.of());
+        publisher = new OutboxPublisher(
+                null,
+                new KafkaTemplate<>(producerFactory),
+                producerFactory,
+                new OutboxCleanupProperties(OutboxCleanupProperties.Mode.MARK, Duration.ofHours(24), 5000),
+                new OutboxRelayProperties(true, 50, 2000, Duration.ofMillis(250), Duration.ofSeconds(1),
+                        false, OutboxRelayProperties.Mode.TRANSACTIONAL, 1,
+                        Duration.ofSeconds(30), 10000, false),
+                null);
+        om = new ObjectMapper();
+        json = new CustomerEventSerializer(new JsonCustomerEventCodec());
+        binary = new CustomerEventSerializer(new BinaryCustomerEventCodec());
+
+        row = Outbox.builder()
+                .id(1L)
+                .aggregateType("Customer")
+                .aggregateId(UUID.randomUUID())
+                .eventType("CustomerCreated")
+                .version(0)
+                .payload("{\"name\":\"Alice Example\",\"email\":\"alice@example.com\"}")
+                .published(false)
+                .eventId(UUID.randomUUID())
+                .occurredAt(OffsetDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] treeJson() throws Exception {
+        CustomerEventEnvelope envelope = CustomerEventEnvelope.builder()
+                .eventId(row.getEventId().toString())
+                .aggregateId(row.getAggregateId().toString())
+                .eventType(row.getEventType())
+                .version(row.getVersion())
+                .timestampUtcMillis(System.currentTimeMillis())
+                .actor("command-service")
+                .payload(om.readTree(row.getPayload()))
+                .build();
+        return om.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public byte[] passthroughJson() {
+        return json.serialize(CustomerTopics.EVENTS, new RecordHeaders(), publisher.toWireEvent(row));
+    }
+
+    @Benchmark
+    public byte[] passthroughBinary() {
+        return binary.serialize(CustomerTopics.EVENTS, new RecordHeaders(), publisher.toWireEvent(row));
+    }
+}
@@ -1,11 +1,31 @@
 package com.github.dimitryivaniuta.gateway.command.customer.api;
 
+import com.github.dimitryivaniuta.gateway.command.customer.service.BulkCommand;
+import com.github.dimitryivaniuta.gateway.command.customer.service.BulkItemResult;
+import com.github.dimitryivaniuta.gateway.command.customer.service.CustomerBulkService;
+import com.github.dimitryivaniuta.gateway.command.customer.service.CustomerNotFoundException;
+import com.github.dimitryivaniuta.gateway.command.customer.service.CommandResult;
 import com.github.dimitryivaniuta.gateway.command.customer.service.CustomerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -13,15 +33,116 @@ import org.springframework.web.bind.annotation.RestController;
 class CustomerController {
     private final CustomerService service;
 
+    private final CustomerBulkService bulk;
+
     record CreateReq(String name, String email) {
     }
 
-    record CreateRes(String id) {
+    /**
+     * @param version consistency token: read the projection with {@code ?min-version=<version>} to see this write
+     */
+    record CreateRes(String id, long version) {
     }
 
     @PostMapping
     public CreateRes create(@RequestBody CreateReq req) {
-        var id = service.create(req.name(), req.email(), "api-user");
-        return new CreateRes(id.toString());
+        var res = service.create(req.name(), req.email(), "api-user");
+        return new CreateRes(res.id().toString(), res.version());
+    }
+
+    record BulkReq(List<BulkCommand> commands) {
+    }
+
+    record BulkRes(int succeeded, int failed, List<BulkItemResult> results) {
+    }
+
+    /**
+     * Mixed create/update/delete; always 200 with one result per item (request order), partial success allowed.
+     */
+    @PostMapping("/bulk")
+    public BulkRes bulk(@RequestBody BulkReq req) {
+        final List<BulkCommand> commands = req.commands() == null ? List.of() : req.commands();
+        if (commands.size() > bulk.maxItems()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "at most " + bulk.maxItems() + " commands per request");
+        }
+        final List<BulkItemResult> results = bulk.execute(commands, "api-user");
+        final int ok = (int) results.stream().filter(BulkItemResult::succeeded).count();
+        return new BulkRes(ok, results.size() - ok, results);
+    }
+
+    record UpdateReq(String name, String email) {
+    }
+
+    record VersionRes(String id, long version) {
+    }
+
+    /**
+     * Full replace; {@code If-Match} carries the expected version ({@code "3"}, {@code W/"3"} or {@code 3}).
+     * 412 if the version is stale, 404 if the customer does not exist (told apart by the guarded statement itself,
+     * no extra SELECT on the write path).
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<VersionRes> replace(@PathVariable UUID id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                              @RequestBody UpdateReq req) {
+        if (isBlank(req.name()) || isBlank(req.email())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name and email are required");
+        }
+        return versioned(service.update(id, expectedVersion(ifMatch), req.name(), req.email(), "api-user"));
+    }
+
+    /**
+     * Partial update: absent fields keep their stored value.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<VersionRes> patch(@PathVariable UUID id,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            @RequestBody UpdateReq req) {
+        if (req.name() == null && req.email() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "nothing to update");
+        }
+        return versioned(service.update(id, expectedVersion(ifMatch), req.name(), req.email(), "api-user"));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<VersionRes> delete(@PathVariable UUID id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return versioned(service.delete(id, expectedVersion(ifMatch), "api-user"));
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    ResponseEntity<Void> duplicateEmail() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    @ExceptionHandler(CustomerNotFoundException.class)
+    ResponseEntity<Void> notFound() {
+        return ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<VersionRes> versioned(Optional<CommandResult> res) {
+        return res
+                .map(r -> ResponseEntity.ok()
+                        .eTag("\"" + r.version() + "\"")
+                        .body(new VersionRes(r.id().toString(), r.version())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+    }
+
+    private static long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED, "If-Match with the expected version is required");
+        }
+        String v = ifMatch.trim();
+        if (v.startsWith("W/")) v = v.substring(2);
+        if (v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) v = v.substring(1, v.length() - 1);
+        try {
+            return Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a version number");
+        }
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
     }
 }
@@ -15,7 +15,8 @@ import java.util.UUID;
 @Builder
 public class Outbox {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_seq")
+    @SequenceGenerator(name = "outbox_id_seq", schema = "write", sequenceName = "outbox_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -39,6 +40,20 @@ public class Outbox {
     @Column(nullable = false)
     private UUID eventId;
 
-    @Column(nullable = false)
+    /**
+     * Set by the column default ({@code clock_timestamp()}, see V10) on every insert path, so the relay's
+     * {@code occurred_at, id} order follows one clock.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
     private OffsetDateTime occurredAt;
+
+    /**
+     * Kafka partition of {@code aggregateId} (see {@code OutboxSharding}); null for rows older than V7.
+     */
+    private Integer shard;
+
+    /**
+     * Issuer of the command; null for rows older than V8.
+     */
+    private String actor;
 }
@@ -0,0 +1,162 @@
+package com.github.dimitryivaniuta.gateway.command.customer.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based writes for bulk commands: every method is one statement for the whole chunk, binding columns as
+ * Postgres arrays and expanding them with {@code unnest}, so round trips do not grow with the chunk size.
+ * Callers own the transaction (customers + outbox rows of one chunk commit together).
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerBulkRepository {
+
+    /**
+     * Row state after a successful write.
+     */
+    public record Written(UUID id, long version, String name, String email) {
+    }
+
+    public record NewCustomer(UUID id, String name, String email) {
+    }
+
+    public record VersionedChange(UUID id, long expectedVersion, String name, String email) {
+    }
+
+    public record OutboxRow(UUID aggregateId, String eventType, long version, String payloadJson, UUID eventId, int shard) {
+    }
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Multi-row insert; rows hitting a unique constraint (email) are skipped, not failed.
+     *
+     * @return inserted rows (subset of the input)
+     */
+    public List<Written> insertCustomers(List<NewCustomer> rows) {
+        if (rows.isEmpty()) return List.of();
+        final String sql = """
+                insert into write.customers (id, name, email, version)
+                select id, name, email, 0
+                  from unnest(?::uuid[], ?::varchar[], ?::varchar[]) as n(id, name, email)
+                on conflict do nothing
+                returning id, version, name, email
+                """;
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, array(con, "uuid", rows.stream().map(NewCustomer::id).toArray()));
+            ps.setArray(2, array(con, "varchar", rows.stream().map(NewCustomer::name).toArray()));
+            ps.setArray(3, array(con, "varchar", rows.stream().map(NewCustomer::email).toArray()));
+            return ps;
+        }, (rs, i) -> written(rs));
+    }
+
+    /**
+     * Version-guarded update of many rows in one statement; null name/email keep the stored value.
+     * Ids must be distinct within one call.
+     *
+     * @return rows whose expected version matched, with their new version and full state
+     */
+    public List<Written> updateIfVersionMatches(List<VersionedChange> rows) {
+        if (rows.isEmpty()) return List.of();
+        final String sql = """
+                update write.customers c
+                   set name = coalesce(u.name, c.name),
+                       email = coalesce(u.email, c.email),
+                       version = c.version + 1,
+                       updated_at = now()
+                  from unnest(?::uuid[], ?::bigint[], ?::varchar[], ?::varchar[]) as u(id, expected, name, email)
+                 where c.id = u.id
+                   and c.version = u.expected
+                returning c.id, c.version, c.name, c.email
+                """;
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, array(con, "uuid", rows.stream().map(VersionedChange::id).toArray()));
+            ps.setArray(2, array(con, "bigint", rows.stream().map(VersionedChange::expectedVersion).toArray()));
+            ps.setArray(3, array(con, "varchar", rows.stream().map(VersionedChange::name).toArray()));
+            ps.setArray(4, array(con, "varchar", rows.stream().map(VersionedChange::email).toArray()));
+            return ps;
+        }, (rs, i) -> written(rs));
+    }
+
+    /**
+     * Version-guarded delete of many rows in one statement.
+     *
+     * @return deleted rows; {@code version} is the version the delete event carries (stored + 1)
+     */
+    public List<Written> deleteIfVersionMatches(List<VersionedChange> rows) {
+        if (rows.isEmpty()) return List.of();
+        final String sql = """
+                delete from write.customers c
+                 using unnest(?::uuid[], ?::bigint[]) as d(id, expected)
+                 where c.id = d.id
+                   and c.version = d.expected
+                returning c.id, c.version + 1 as version, c.name, c.email
+                """;
+        return jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, array(con, "uuid", rows.stream().map(VersionedChange::id).toArray()));
+            ps.setArray(2, array(con, "bigint", rows.stream().map(VersionedChange::expectedVersion).toArray()));
+            return ps;
+        }, (rs, i) -> written(rs));
+    }
+
+    /**
+     * @return current version per existing id (ids missing from the map do not exist)
+     */
+    public Map<UUID, Long> currentVersions(List<UUID> ids) {
+        final Map<UUID, Long> out = new HashMap<>();
+        if (ids.isEmpty()) return out;
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("select id, version from write.customers where id = any(?)");
+            ps.setArray(1, array(con, "uuid", ids.toArray()));
+            return ps;
+        }, rs -> {
+            out.put(rs.getObject(1, UUID.class), rs.getLong(2));
+        });
+        return out;
+    }
+
+    /**
+     * Multi-row outbox insert (ids and {@code occurred_at} come from the column defaults); all rows get the same {@code actor}.
+     */
+    public void insertOutbox(List<OutboxRow> rows, String actor) {
+        if (rows.isEmpty()) return;
+        final String sql = """
+                insert into write.outbox (aggregate_type, aggregate_id, event_type, version, payload, published, event_id, shard, actor)
+                select 'Customer', a, t, v, p::jsonb, false, e, s, ?
+                  from unnest(?::uuid[], ?::varchar[], ?::bigint[], ?::text[], ?::uuid[], ?::int[]) as o(a, t, v, p, e, s)
+                """;
+        jdbc.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setString(1, actor);
+            ps.setArray(2, array(con, "uuid", rows.stream().map(OutboxRow::aggregateId).toArray()));
+            ps.setArray(3, array(con, "varchar", rows.stream().map(OutboxRow::eventType).toArray()));
+            ps.setArray(4, array(con, "bigint", rows.stream().map(OutboxRow::version).toArray()));
+            ps.setArray(5, array(con, "text", rows.stream().map(OutboxRow::payloadJson).toArray()));
+            ps.setArray(6, array(con, "uuid", rows.stream().map(OutboxRow::eventId).toArray()));
+            ps.setArray(7, array(con, "int4", rows.stream().map(OutboxRow::shard).toArray()));
+            return ps;
+        });
+    }
+
+    private static Array array(Connection con, String type, Object[] values) throws SQLException {
+        return con.createArrayOf(type, values);
+    }
+
+    private static Written written(java.sql.ResultSet rs) throws SQLException {
+        return new Written(rs.getObject(1, UUID.class), rs.getLong(2), rs.getString(3), rs.getString(4));
+    }
+}
@@ -12,10 +12,13 @@ import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID>, CustomerRepositoryCustom {
 
-    // Case-insensitive lookups
-    Optional<Customer> findByEmailIgnoreCase(@NonNull String email);
+    // Case-insensitive lookups, written as lower() so ux_customers_email_lower serves them
+    // (derived IgnoreCase queries compare upper(email) and scan the table)
+    @Query("select c from Customer c where lower(c.email) = lower(:email)")
+    Optional<Customer> findByLowerEmail(@NonNull @Param("email") String email);
 
-    boolean existsByEmailIgnoreCase(@NonNull String email);
+    @Query("select count(c) > 0 from Customer c where lower(c.email) = lower(:email)")
+    boolean existsByLowerEmail(@NonNull @Param("email") String email);
 
     // Optional: pessimistic lock for special flows (rare; we use optimistic @Version by default)
     @Lock(LockModeType.PESSIMISTIC_WRITE)
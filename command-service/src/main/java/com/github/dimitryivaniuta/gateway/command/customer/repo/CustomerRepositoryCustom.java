@@ -4,26 +4,45 @@ import com.github.dimitryivaniuta.gateway.command.customer.domain.Customer;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import java.util.OptionalLong;
 import java.util.UUID;
 
 /**
  * Extra operations optimized for hot paths.
- * - updateIfVersionMatches: single-statement, version-checked update (no entity load)
+ * - updateIfVersionMatches / deleteIfVersionMatches: single-statement, version-checked write + outbox row (no entity load)
+ * - insertNew: persist without the merge() SELECT that save() issues for assigned ids
  */
 public interface CustomerRepositoryCustom {
 
     /**
-     * Updates name/email and bumps the version in a single JPQL UPDATE guarded by the expected version.
+     * Outcome of a version-guarded write.
      *
-     * @return true if exactly one row was updated (version matched), false otherwise.
+     * @param version the new version when the expected version matched, empty otherwise
+     * @param found   whether the row existed when the statement ran (tells "missing" from "stale version")
      */
-    boolean updateIfVersionMatches(
+    record GuardedWrite(OptionalLong version, boolean found) {
+    }
+
+    /**
+     * Updates name/email (null keeps the stored value) and bumps the version in one statement guarded by the
+     * expected version; the matching {@code CustomerUpdated} outbox row is inserted by the same statement.
+     * {@code shard} and {@code actor} are stored on the outbox row (the caller computes the shard from {@code id}).
+     */
+    GuardedWrite updateIfVersionMatches(
             @NonNull UUID id,
             long expectedVersion,
             @Nullable String name,
-            @Nullable String email
+            @Nullable String email,
+            int shard,
+            @Nullable String actor
     );
 
+    /**
+     * Deletes the row in one statement guarded by the expected version, inserting the {@code CustomerDeleted}
+     * outbox row in the same statement. The returned version is the one carried by the delete event (stored + 1).
+     */
+    GuardedWrite deleteIfVersionMatches(@NonNull UUID id, long expectedVersion, int shard, @Nullable String actor);
+
     /**
      * Inserts a new Customer ensuring initial version semantics (helper; delegates to EntityManager persist()).
      */
@@ -0,0 +1,11 @@
+package com.github.dimitryivaniuta.gateway.command.customer.repo;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Snapshot of the unpublished part of the outbox.
+ *
+ * @param oldestOccurredAt {@code occurred_at} of the oldest unpublished row, null when the backlog is empty
+ */
+public record OutboxBacklog(long size, OffsetDateTime oldestOccurredAt) {
+}
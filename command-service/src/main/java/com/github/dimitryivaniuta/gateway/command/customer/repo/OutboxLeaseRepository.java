@@ -0,0 +1,98 @@
+package com.github.dimitryivaniuta.gateway.command.customer.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Membership and shard leases for the sharded outbox relay ({@code write.outbox_publishers},
+ * {@code write.outbox_shard_leases}). Every method is one auto-committed statement; lease expiry is judged by the
+ * database clock only, so instance clock skew never matters.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxLeaseRepository {
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Creates missing lease rows {@code 0..count-1} (idempotent).
+     */
+    public void ensureShards(int count) {
+        jdbc.update("""
+                insert into write.outbox_shard_leases (shard)
+                select s from generate_series(0, ? - 1) as s
+                on conflict (shard) do nothing
+                """, count);
+    }
+
+    public void heartbeat(String instanceId) {
+        jdbc.update("""
+                insert into write.outbox_publishers (instance_id, heartbeat_at)
+                values (?, now())
+                on conflict (instance_id) do update set heartbeat_at = excluded.heartbeat_at
+                """, instanceId);
+    }
+
+    /**
+     * Drops members whose heartbeat is older than {@code ttl} and returns the remaining ones in a stable order.
+     */
+    public List<String> liveInstances(Duration ttl) {
+        jdbc.update("delete from write.outbox_publishers where heartbeat_at < now() - ? * interval '1 millisecond'",
+                ttl.toMillis());
+        return jdbc.queryForList("select instance_id from write.outbox_publishers order by instance_id", String.class);
+    }
+
+    /**
+     * Takes the shard if it is free, expired or already ours; bumps {@code epoch} on every takeover.
+     *
+     * @return true if {@code owner} now holds the lease
+     */
+    public boolean acquire(int shard, String owner, Duration ttl) {
+        return jdbc.update("""
+                update write.outbox_shard_leases
+                   set epoch = epoch + case when owner is distinct from ? then 1 else 0 end,
+                       owner = ?,
+                       lease_until = now() + ? * interval '1 millisecond'
+                 where shard = ?
+                   and (owner is null or owner = ? or lease_until < now())
+                """, owner, owner, ttl.toMillis(), shard, owner) == 1;
+    }
+
+    /**
+     * Extends all unexpired leases of {@code owner}.
+     *
+     * @return shards still held; anything else the caller thought it owned is lost and must stop publishing
+     */
+    public Set<Integer> renew(String owner, Duration ttl) {
+        return new HashSet<>(jdbc.queryForList("""
+                update write.outbox_shard_leases
+                   set lease_until = now() + ? * interval '1 millisecond'
+                 where owner = ?
+                   and lease_until >= now()
+                returning shard
+                """, Integer.class, ttl.toMillis(), owner));
+    }
+
+    public void release(int shard, String owner) {
+        jdbc.update("""
+                update write.outbox_shard_leases
+                   set owner = null, lease_until = '-infinity'
+                 where shard = ?
+                   and owner = ?
+                """, shard, owner);
+    }
+
+    /**
+     * Graceful shutdown: frees every lease and leaves the membership so peers rebalance immediately.
+     */
+    public void leave(String owner) {
+        jdbc.update("update write.outbox_shard_leases set owner = null, lease_until = '-infinity' where owner = ?", owner);
+        jdbc.update("delete from write.outbox_publishers where instance_id = ?", owner);
+    }
+}
@@ -17,15 +17,50 @@ public interface OutboxRepositoryCustom {
      */
     List<Outbox> lockNextUnpublished(int batchSize);
 
+    /**
+     * Like {@link #lockNextUnpublished(int)} but only for rows whose aggregate hashes into {@code lane}
+     * (of {@code lanes}). Lanes are disjoint and keep all events of one aggregate together.
+     */
+    List<Outbox> lockNextUnpublished(int batchSize, int lane, int lanes);
+
+    /**
+     * Oldest unpublished rows of {@code lane} (of {@code lanes}) except {@code exclude}, without locking them.
+     * For a relay that keeps sends in flight past the reading transaction and tracks them itself.
+     */
+    List<Outbox> findNextUnpublished(int batchSize, int lane, int lanes, Collection<Long> exclude);
+
+    /**
+     * Oldest unpublished rows of one outbox shard, locked, and only while {@code owner} holds an unexpired lease
+     * on it (checked in the same statement, so a relay that lost its lease reads nothing).
+     */
+    List<Outbox> lockNextUnpublishedInShard(int batchSize, int shard, String owner);
+
     /**
      * Marks the given rows as published. Idempotent for empty collections.
      */
     void markPublished(Collection<Long> ids);
 
+    /**
+     * Deletes the given rows (publish-and-delete mode). Idempotent for empty collections.
+     */
+    void deletePublished(Collection<Long> ids);
+
+    /**
+     * Deletes at most {@code limit} published rows older than the given timestamp (one bounded chunk).
+     *
+     * @return number of rows removed
+     */
+    int prunePublishedChunk(OffsetDateTime threshold, int limit);
+
     /**
      * Deletes already published rows older than the given timestamp.
      *
      * @return number of rows removed
      */
     int prunePublishedOlderThan(OffsetDateTime threshold);
+
+    /**
+     * Counts unpublished rows and finds the oldest one (served by the partial unpublished index).
+     */
+    OutboxBacklog backlog();
 }
@@ -9,9 +9,13 @@ import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.List;
+import java.util.StringJoiner;
 
 @Repository
 @RequiredArgsConstructor
@@ -25,6 +29,7 @@ class OutboxRepositoryImpl implements OutboxRepositoryCustom {
      * concurrent publisher instances do not pick the same rows.
      * <p>
      * Postgres syntax order is: ORDER BY ... LIMIT ... FOR UPDATE SKIP LOCKED
+     * Served by the partial index {@code ix_outbox_unpublished (occurred_at, id) where published = false}.
      */
     @Override
     @Transactional
@@ -33,7 +38,7 @@ class OutboxRepositoryImpl implements OutboxRepositoryCustom {
                 select *
                   from write.outbox
                  where published = false
-                 order by occurred_at asc
+                 order by occurred_at asc, id asc
                  limit :batch
                  for update skip locked
                 """;
@@ -48,6 +53,109 @@ class OutboxRepositoryImpl implements OutboxRepositoryCustom {
         return rows;
     }
 
+    /**
+     * Same as {@link #lockNextUnpublished(int)} but restricted to one lane of {@code lanes}: rows are split by a
+     * stable hash of {@code aggregate_id}, so every aggregate lives in exactly one lane and concurrent lanes lock
+     * disjoint windows without ever reordering events of the same aggregate.
+     */
+    @Override
+    @Transactional
+    public List<Outbox> lockNextUnpublished(int batchSize, int lane, int lanes) {
+        if (lanes <= 1) return lockNextUnpublished(batchSize);
+
+        final String sql = """
+                select *
+                  from write.outbox
+                 where published = false
+                   and (hashtext(aggregate_id::text) & 2147483647) % :lanes = :lane
+                 order by occurred_at asc, id asc
+                 limit :batch
+                 for update skip locked
+                """;
+
+        @SuppressWarnings("unchecked")
+        List<Outbox> rows = em
+                .createNativeQuery(sql, Outbox.class)
+                .setParameter("lanes", lanes)
+                .setParameter("lane", lane)
+                .setParameter("batch", Math.max(1, batchSize))
+                .setHint(HibernateHints.HINT_READ_ONLY, Boolean.TRUE)
+                .getResultList();
+
+        return rows;
+    }
+
+    /**
+     * Pipelined variant: no row locks (they would end with this read-only transaction anyway); rows whose sends are
+     * still in flight are passed in {@code exclude} instead. Lanes stay disjoint through the same hash as
+     * {@link #lockNextUnpublished(int, int, int)}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Outbox> findNextUnpublished(int batchSize, int lane, int lanes, Collection<Long> exclude) {
+        final String sql = """
+                select *
+                  from write.outbox
+                 where published = false
+                   and (hashtext(aggregate_id::text) & 2147483647) % :lanes = :lane
+                   and id <> all(cast(:exclude as bigint[]))
+                 order by occurred_at asc, id asc
+                 limit :batch
+                """;
+
+        // array literal instead of an IN list: one bind parameter however many sends are in flight
+        final StringJoiner ids = new StringJoiner(",", "{", "}");
+        exclude.forEach(id -> ids.add(id.toString()));
+
+        @SuppressWarnings("unchecked")
+        List<Outbox> rows = em
+                .createNativeQuery(sql, Outbox.class)
+                .setParameter("lanes", Math.max(1, lanes))
+                .setParameter("lane", lanes <= 1 ? 0 : lane)
+                .setParameter("exclude", ids.toString())
+                .setParameter("batch", Math.max(1, batchSize))
+                .setHint(HibernateHints.HINT_READ_ONLY, Boolean.TRUE)
+                .getResultList();
+
+        return rows;
+    }
+
+    /**
+     * Shard variant for {@code OutboxShardRelay}. Uses a blocking {@code FOR UPDATE} instead of {@code SKIP LOCKED}:
+     * a shard has a single publisher, and rows still locked by a fenced previous owner must be waited for (they
+     * come back unpublished after its rollback) rather than skipped, or newer events could overtake them.
+     * Pre-sharding rows ({@code shard is null}) belong to shard 0.
+     */
+    @Override
+    @Transactional
+    public List<Outbox> lockNextUnpublishedInShard(int batchSize, int shard, String owner) {
+        final String sql = """
+                select o.*
+                  from write.outbox o
+                 where o.published = false
+                   and (o.shard = :shard or (:shard = 0 and o.shard is null))
+                   and exists (select 1
+                                 from write.outbox_shard_leases l
+                                where l.shard = :shard
+                                  and l.owner = :owner
+                                  and l.lease_until > now())
+                 order by o.occurred_at asc, o.id asc
+                 limit :batch
+                 for update of o
+                """;
+
+        @SuppressWarnings("unchecked")
+        List<Outbox> rows = em
+                .createNativeQuery(sql, Outbox.class)
+                .setParameter("shard", shard)
+                .setParameter("owner", owner)
+                .setParameter("batch", Math.max(1, batchSize))
+                .setHint(HibernateHints.HINT_READ_ONLY, Boolean.TRUE)
+                .getResultList();
+
+        return rows;
+    }
+
     /**
      * Marks selected outbox rows as published. Use only after a successful Kafka transactional send.
      */
@@ -68,6 +176,46 @@ class OutboxRepositoryImpl implements OutboxRepositoryCustom {
         em.clear();
     }
 
+    /**
+     * Deletes rows right after a successful send instead of flagging them ({@code outbox.cleanup.mode=delete}).
+     */
+    @Override
+    @Transactional
+    public void deletePublished(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return;
+
+        em.createQuery("""
+                        delete from Outbox o
+                         where o.id in :ids
+                        """)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        em.clear();
+    }
+
+    /**
+     * Deletes at most {@code limit} published rows older than the threshold, oldest first.
+     * Rows locked by a concurrent pruner are skipped, so chunks never contend.
+     */
+    @Override
+    @Transactional
+    public int prunePublishedChunk(OffsetDateTime threshold, int limit) {
+        final String sql = """
+                delete from write.outbox
+                 where id in (select id
+                                from write.outbox
+                               where published = true
+                                 and occurred_at < :ts
+                               order by occurred_at asc
+                               limit :limit
+                                 for update skip locked)
+                """;
+        return em.createNativeQuery(sql)
+                .setParameter("ts", threshold)
+                .setParameter("limit", Math.max(1, limit))
+                .executeUpdate();
+    }
+
     /**
      * Housekeeping for already-published items (e.g., run daily).
      */
@@ -84,4 +232,29 @@ class OutboxRepositoryImpl implements OutboxRepositoryCustom {
         em.clear();
         return removed;
     }
+
+    /**
+     * Backlog snapshot for metrics; cheap because only unpublished rows are in the partial index.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public OutboxBacklog backlog() {
+        final Object[] row = (Object[]) em.createNativeQuery("""
+                        select count(*), min(occurred_at)
+                          from write.outbox
+                         where published = false
+                        """)
+                .getSingleResult();
+        return new OutboxBacklog(((Number) row[0]).longValue(), toOffsetDateTime(row[1]));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Object value) {
+        return switch (value) {
+            case null -> null;
+            case OffsetDateTime odt -> odt;
+            case Instant i -> i.atOffset(ZoneOffset.UTC);
+            case Timestamp ts -> ts.toInstant().atOffset(ZoneOffset.UTC);
+            default -> throw new IllegalStateException("Unexpected timestamp type " + value.getClass());
+        };
+    }
 }
@@ -0,0 +1,16 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.util.UUID;
+
+/**
+ * One item of a bulk request.
+ *
+ * @param id              target aggregate (UPDATE/DELETE); ignored for CREATE
+ * @param expectedVersion optimistic-concurrency guard (UPDATE/DELETE)
+ * @param name            CREATE: required; UPDATE: null keeps the stored value
+ * @param email           CREATE: required; UPDATE: null keeps the stored value
+ */
+public record BulkCommand(Op op, UUID id, Long expectedVersion, String name, String email) {
+
+    public enum Op {CREATE, UPDATE, DELETE}
+}
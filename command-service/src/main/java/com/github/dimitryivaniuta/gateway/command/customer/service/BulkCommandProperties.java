@@ -0,0 +1,17 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Bulk command endpoint tuning ({@code command.bulk.*}).
+ *
+ * @param chunkSize items written per transaction (one multi-row statement per table and operation)
+ * @param maxItems  largest accepted request
+ */
+@ConfigurationProperties(prefix = "command.bulk")
+public record BulkCommandProperties(
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("10000") int maxItems
+) {
+}
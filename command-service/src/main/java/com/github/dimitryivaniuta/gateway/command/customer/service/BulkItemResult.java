@@ -0,0 +1,17 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one bulk item, in request order.
+ *
+ * @param version new version (success) or current stored version ({@code CONFLICT}); null otherwise
+ */
+public record BulkItemResult(int index, Status status, UUID id, Long version, String error) {
+
+    public enum Status {CREATED, UPDATED, DELETED, CONFLICT, NOT_FOUND, DUPLICATE_EMAIL, INVALID, FAILED}
+
+    public boolean succeeded() {
+        return status == Status.CREATED || status == Status.UPDATED || status == Status.DELETED;
+    }
+}
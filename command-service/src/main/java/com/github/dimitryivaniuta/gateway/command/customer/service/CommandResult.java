@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a write command.
+ *
+ * @param id      aggregate id
+ * @param version aggregate version written by the command; doubles as the read-your-writes token, i.e. pass it as
+ *                {@code min-version} to the projection read API to wait until the view reflects this write
+ */
+public record CommandResult(UUID id, long version) {
+}
@@ -0,0 +1,309 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerBulkRepository;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerBulkRepository.NewCustomer;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerBulkRepository.OutboxRow;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerBulkRepository.VersionedChange;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerBulkRepository.Written;
+import com.github.dimitryivaniuta.gateway.command.customer.service.BulkItemResult.Status;
+import com.github.dimitryivaniuta.gateway.command.outbox.OutboxSharding;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerDeleted;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerUpdated;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Executes bulk create/update/delete commands.
+ * <p>
+ * Items are split into chunks of {@code command.bulk.chunk-size}; each chunk is one transaction issuing one
+ * multi-row statement per operation plus one multi-row outbox insert, so a 10k-item request costs tens of round
+ * trips instead of tens of thousands. A chunk never contains the same aggregate twice (a repeated id starts a
+ * new chunk), which keeps per-aggregate versions and outbox order identical to issuing the commands one by one.
+ * <p>
+ * Emails are pre-checked through {@link EmailRegistry}: the in-process filter clears most of them, the rest cost
+ * one indexed query per chunk, and known duplicates never reach the write statements.
+ * <p>
+ * Version mismatches, missing rows and duplicate emails are reported per item without failing the chunk. A
+ * data error (e.g. a unique violation raised by an UPDATE) rolls the chunk back and re-runs its items one per
+ * transaction so only the offending item fails. Any other failure (database unreachable, transaction
+ * infrastructure, a bug) is not item-specific: the chunk and every item after it are reported {@code FAILED}
+ * without being attempted, and the chunks committed before stay committed, so every item always gets a result.
+ */
+@Slf4j
+@Service
+public class CustomerBulkService {
+
+    private record Item(int index, BulkCommand cmd) {
+    }
+
+    private final CustomerBulkRepository repo;
+
+    private final ObjectMapper om;
+
+    private final TransactionTemplate tx;
+
+    private final BulkCommandProperties props;
+
+    private final EmailRegistry emails;
+
+    private final ApplicationEventPublisher events;
+
+    private final OutboxSharding sharding;
+
+    public CustomerBulkService(CustomerBulkRepository repo, ObjectMapper om, PlatformTransactionManager txManager,
+                               BulkCommandProperties props, EmailRegistry emails, ApplicationEventPublisher events,
+                               OutboxSharding sharding) {
+        this.repo = repo;
+        this.om = om;
+        this.tx = new TransactionTemplate(txManager);
+        this.props = props;
+        this.emails = emails;
+        this.events = events;
+        this.sharding = sharding;
+    }
+
+    public int maxItems() {
+        return props.maxItems();
+    }
+
+    public List<BulkItemResult> execute(List<BulkCommand> commands, String actor) {
+        final BulkItemResult[] results = new BulkItemResult[commands.size()];
+        final List<Item> chunk = new ArrayList<>(Math.min(commands.size(), props.chunkSize()));
+        final Set<UUID> chunkIds = new HashSet<>();
+        String aborted = null;
+
+        for (int i = 0; i < commands.size(); i++) {
+            final BulkCommand cmd = commands.get(i);
+            final String invalid = validate(cmd);
+            if (invalid != null) {
+                results[i] = new BulkItemResult(i, Status.INVALID, cmd == null ? null : cmd.id(), null, invalid);
+                continue;
+            }
+            if (aborted != null) {
+                results[i] = notAttempted(new Item(i, cmd), aborted);
+                continue;
+            }
+            final boolean repeated = cmd.op() != BulkCommand.Op.CREATE && !chunkIds.add(cmd.id());
+            if (repeated || chunk.size() >= props.chunkSize()) {
+                aborted = run(chunk, results, actor);
+                chunk.clear();
+                chunkIds.clear();
+                if (aborted != null) {
+                    results[i] = notAttempted(new Item(i, cmd), aborted);
+                    continue;
+                }
+                if (cmd.op() != BulkCommand.Op.CREATE) chunkIds.add(cmd.id());
+            }
+            chunk.add(new Item(i, cmd));
+        }
+        if (aborted == null) run(chunk, results, actor);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @return null, or the reason the rest of the request must not be attempted (the chunk's items are then
+     * already reported {@code FAILED})
+     */
+    private String run(List<Item> chunk, BulkItemResult[] results, String actor) {
+        if (chunk.isEmpty()) return null;
+        try {
+            for (BulkItemResult r : tx.execute(s -> write(chunk, actor))) {
+                results[r.index()] = r;
+            }
+            return null;
+        } catch (DataAccessException e) {
+            if (isOutage(e)) return abort(chunk, results, e);
+            if (chunk.size() > 1) {
+                log.debug("Bulk chunk of {} failed ({}), retrying item by item", chunk.size(), e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    final String aborted = run(List.of(chunk.get(i)), results, actor);
+                    if (aborted != null) {
+                        for (Item rest : chunk.subList(i + 1, chunk.size())) {
+                            results[rest.index()] = notAttempted(rest, aborted);
+                        }
+                        return aborted;
+                    }
+                }
+            } else {
+                final Item item = chunk.get(0);
+                final Status status = e instanceof DataIntegrityViolationException ? Status.DUPLICATE_EMAIL : Status.FAILED;
+                results[item.index()] = new BulkItemResult(item.index(), status, item.cmd().id(), null,
+                        e.getMostSpecificCause().getMessage());
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return abort(chunk, results, e);
+        }
+    }
+
+    /**
+     * Failures that say nothing about the items, so retrying them one by one would only repeat the failure.
+     */
+    private static boolean isOutage(DataAccessException e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessResourceException;
+    }
+
+    private static String abort(List<Item> chunk, BulkItemResult[] results, RuntimeException e) {
+        log.warn("Bulk chunk of {} failed; reporting it and the remaining items as failed", chunk.size(), e);
+        final String reason = e instanceof DataAccessException dae
+                ? dae.getMostSpecificCause().getMessage()
+                : String.valueOf(e.getMessage());
+        for (Item item : chunk) {
+            results[item.index()] = new BulkItemResult(item.index(), Status.FAILED, item.cmd().id(), null, reason);
+        }
+        return reason;
+    }
+
+    private static BulkItemResult notAttempted(Item item, String reason) {
+        return new BulkItemResult(item.index(), Status.FAILED, item.cmd().id(), null, "not attempted: " + reason);
+    }
+
+    private List<BulkItemResult> write(List<Item> chunk, String actor) {
+        final List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        final Map<String, UUID> owners = emails.owners(chunk.stream()
+                .map(item -> item.cmd().email())
+                .filter(Objects::nonNull)
+                .toList());
+
+        final List<Item> creates = new ArrayList<>();
+        final List<Item> updates = new ArrayList<>();
+        final List<Item> deletes = new ArrayList<>();
+        for (Item item : chunk) {
+            final BulkCommand cmd = item.cmd();
+            if (cmd.op() != BulkCommand.Op.DELETE && cmd.email() != null) {
+                final UUID owner = owners.get(EmailRegistry.normalize(cmd.email()));
+                if (owner != null && !owner.equals(cmd.id())) {
+                    results.add(new BulkItemResult(item.index(), Status.DUPLICATE_EMAIL, cmd.id(), null, "email already exists"));
+                    continue;
+                }
+            }
+            switch (cmd.op()) {
+                case CREATE -> creates.add(item);
+                case UPDATE -> updates.add(item);
+                case DELETE -> deletes.add(item);
+            }
+        }
+
+        final List<OutboxRow> outboxRows = new ArrayList<>(chunk.size());
+        final List<String> writtenEmails = new ArrayList<>();
+
+        if (!creates.isEmpty()) {
+            final List<NewCustomer> rows = new ArrayList<>(creates.size());
+            for (Item item : creates) {
+                rows.add(new NewCustomer(UUID.randomUUID(), item.cmd().name(), EmailRegistry.stored(item.cmd().email())));
+            }
+            final Set<UUID> inserted = new HashSet<>();
+            for (Written w : repo.insertCustomers(rows)) {
+                inserted.add(w.id());
+                writtenEmails.add(w.email());
+                outboxRows.add(event(w, "CustomerCreated", new CustomerCreated(w.name(), w.email())));
+            }
+            for (int i = 0; i < creates.size(); i++) {
+                final Item item = creates.get(i);
+                final UUID id = rows.get(i).id();
+                results.add(inserted.contains(id)
+                        ? new BulkItemResult(item.index(), Status.CREATED, id, 0L, null)
+                        : new BulkItemResult(item.index(), Status.DUPLICATE_EMAIL, null, null, "email already exists"));
+            }
+        }
+        if (!updates.isEmpty()) {
+            final List<Written> written = repo.updateIfVersionMatches(changes(updates));
+            for (Written w : written) {
+                writtenEmails.add(w.email());
+                outboxRows.add(event(w, "CustomerUpdated", new CustomerUpdated(w.name(), w.email())));
+            }
+            guarded(updates, written, Status.UPDATED, results);
+        }
+        if (!deletes.isEmpty()) {
+            final List<Written> written = repo.deleteIfVersionMatches(changes(deletes));
+            for (Written w : written) {
+                outboxRows.add(event(w, "CustomerDeleted", new CustomerDeleted(false)));
+            }
+            guarded(deletes, written, Status.DELETED, results);
+        }
+
+        repo.insertOutbox(outboxRows, actor);
+        events.publishEvent(new EmailsWritten(writtenEmails));
+        return results;
+    }
+
+    /**
+     * Maps version-guarded writes to results; items that did not match are told apart with one lookup.
+     */
+    private void guarded(List<Item> items, List<Written> written, Status ok, List<BulkItemResult> results) {
+        final Map<UUID, Written> byId = new HashMap<>(written.size() * 2);
+        for (Written w : written) byId.put(w.id(), w);
+
+        final List<UUID> missed = new ArrayList<>();
+        for (Item item : items) {
+            if (!byId.containsKey(item.cmd().id())) missed.add(item.cmd().id());
+        }
+        final Map<UUID, Long> current = repo.currentVersions(missed);
+
+        for (Item item : items) {
+            final UUID id = item.cmd().id();
+            final Written w = byId.get(id);
+            if (w != null) {
+                results.add(new BulkItemResult(item.index(), ok, id, w.version(), null));
+            } else if (current.containsKey(id)) {
+                results.add(new BulkItemResult(item.index(), Status.CONFLICT, id, current.get(id), "version mismatch"));
+            } else {
+                results.add(new BulkItemResult(item.index(), Status.NOT_FOUND, id, null, null));
+            }
+        }
+    }
+
+    private static List<VersionedChange> changes(List<Item> items) {
+        final List<VersionedChange> out = new ArrayList<>(items.size());
+        for (Item item : items) {
+            final BulkCommand c = item.cmd();
+            out.add(new VersionedChange(c.id(), c.expectedVersion(), c.name(), EmailRegistry.stored(c.email())));
+        }
+        return out;
+    }
+
+    private OutboxRow event(Written w, String type, Object payload) {
+        return new OutboxRow(w.id(), type, w.version(), write(payload), UUID.randomUUID(), sharding.shardOf(w.id()));
+    }
+
+    private static String validate(BulkCommand cmd) {
+        if (cmd == null || cmd.op() == null) return "op is required";
+        return switch (cmd.op()) {
+            case CREATE -> isBlank(cmd.name()) || isBlank(cmd.email()) ? "name and email are required" : null;
+            case UPDATE -> cmd.id() == null || cmd.expectedVersion() == null ? "id and expectedVersion are required"
+                    : cmd.name() == null && cmd.email() == null ? "nothing to update" : null;
+            case DELETE -> cmd.id() == null || cmd.expectedVersion() == null ? "id and expectedVersion are required" : null;
+        };
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private String write(Object o) {
+        try {
+            return om.writeValueAsString(o);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
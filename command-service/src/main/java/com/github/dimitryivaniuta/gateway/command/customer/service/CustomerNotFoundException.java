@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.util.UUID;
+
+/**
+ * A version-guarded command addressed a customer that does not exist (as opposed to a stale expected version).
+ */
+public class CustomerNotFoundException extends RuntimeException {
+
+    public CustomerNotFoundException(UUID id) {
+        super("customer not found: " + id);
+    }
+}
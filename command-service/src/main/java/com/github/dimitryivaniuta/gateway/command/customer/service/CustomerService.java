@@ -4,12 +4,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dimitryivaniuta.gateway.command.customer.domain.Customer;
 import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
 import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerRepository;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerRepositoryCustom.GuardedWrite;
 import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxRepository;
+import com.github.dimitryivaniuta.gateway.command.outbox.OutboxSharding;
 import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -22,11 +27,21 @@ public class CustomerService {
 
     private final ObjectMapper om;
 
+    private final EmailRegistry emails;
+
+    private final OutboxSharding sharding;
+
+    private final ApplicationEventPublisher events;
+
     @Transactional
-    public UUID create(String name, String email, String actor) {
+    public CommandResult create(String name, String rawEmail, String actor) {
+        final String email = EmailRegistry.stored(rawEmail);
+        if (emails.isTaken(email)) {
+            throw new EmailAlreadyExistsException(email);
+        }
         var id = UUID.randomUUID();
         var entity = Customer.builder().id(id).name(name).email(email).build();
-        customers.save(entity);
+        customers.insertNew(entity);
 
         var evt = new CustomerCreated(name, email);
         var out = Outbox.builder()
@@ -34,10 +49,43 @@ public class CustomerService {
                 .eventType("CustomerCreated").version(0)
                 .payload(write(evt)).published(false)
                 .eventId(UUID.randomUUID())
-                .occurredAt(java.time.OffsetDateTime.now())
+                .shard(sharding.shardOf(id))
+                .actor(actor)
                 .build();
         outbox.save(out);
-        return id;
+        events.publishEvent(new EmailsWritten(List.of(email)));
+        return new CommandResult(id, out.getVersion());
+    }
+
+    /**
+     * Version-guarded update: one conditional statement writes the row and its outbox event.
+     *
+     * @return the new version, or empty if {@code expectedVersion} is stale
+     * @throws CustomerNotFoundException if the customer does not exist
+     */
+    @Transactional
+    public Optional<CommandResult> update(UUID id, long expectedVersion, String name, String rawEmail, String actor) {
+        final String email = EmailRegistry.stored(rawEmail);
+        final Optional<CommandResult> res = result(id,
+                customers.updateIfVersionMatches(id, expectedVersion, name, email, sharding.shardOf(id), actor));
+        if (res.isPresent() && email != null) {
+            events.publishEvent(new EmailsWritten(List.of(email)));
+        }
+        return res;
+    }
+
+    /**
+     * Version-guarded hard delete; see {@link #update}.
+     */
+    @Transactional
+    public Optional<CommandResult> delete(UUID id, long expectedVersion, String actor) {
+        return result(id, customers.deleteIfVersionMatches(id, expectedVersion, sharding.shardOf(id), actor));
+    }
+
+    private static Optional<CommandResult> result(UUID id, GuardedWrite write) {
+        if (write.version().isPresent()) return Optional.of(new CommandResult(id, write.version().getAsLong()));
+        if (!write.found()) throw new CustomerNotFoundException(id);
+        return Optional.empty();
     }
 
     private String write(Object o) {
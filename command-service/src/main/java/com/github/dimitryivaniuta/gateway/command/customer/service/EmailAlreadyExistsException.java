@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Pre-insert duplicate detection; a subtype of the exception the unique index raises so callers handle both alike.
+ */
+public class EmailAlreadyExistsException extends DataIntegrityViolationException {
+
+    public EmailAlreadyExistsException(String email) {
+        super("email already exists: " + email);
+    }
+}
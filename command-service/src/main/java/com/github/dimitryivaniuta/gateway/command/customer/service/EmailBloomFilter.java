@@ -0,0 +1,68 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over normalized emails: no false negatives, {@code fpp} false positives at
+ * {@code expectedInsertions}. Bits are set with CAS so concurrent adds never lose each other.
+ * Indexes use double hashing ({@code h1 + i * h2}) over a 64-bit FNV-1a hash and a SplitMix64 remix.
+ */
+final class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    EmailBloomFilter(long expectedInsertions, double fpp) {
+        final long n = Math.max(1, expectedInsertions);
+        final long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        final int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) >>> 6);
+        this.words = new AtomicLongArray(words);
+        this.bits = (long) words << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void add(String normalized) {
+        final long h1 = fnv1a(normalized);
+        final long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = Math.floorMod(h1 + i * h2, bits);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long cur;
+            while (((cur = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, cur, cur | mask)) break;
+            }
+        }
+    }
+
+    boolean mightContain(String normalized) {
+        final long h1 = fnv1a(normalized);
+        final long h2 = mix(h1) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            final long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return bits >>> 3;
+    }
+
+    private static long fnv1a(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * In-process email Bloom filter ({@code command.email-filter.*}).
+ *
+ * @param expectedInsertions sizing target; beyond it the false-positive rate (i.e. DB lookups) rises gradually
+ * @param falsePositiveRate  share of free emails that still need a DB lookup at {@code expectedInsertions}
+ * @param warmupFetchSize    rows per round trip while streaming {@code write.customers} at startup
+ */
+@ConfigurationProperties(prefix = "command.email-filter")
+public record EmailFilterProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000000") long expectedInsertions,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("10000") int warmupFetchSize
+) {
+}
@@ -0,0 +1,146 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import com.github.dimitryivaniuta.gateway.command.customer.repo.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers "is this email taken?" without touching the database when it can.
+ * <p>
+ * Writes store emails trimmed ({@link #stored}), so the normalized key {@code lower(trim(email))} is exactly what
+ * the {@code lower(email)} unique index compares. A Bloom filter of normalized emails is warmed at startup by streaming
+ * {@code write.customers} and extended after every committing write ({@link EmailsWritten}). A negative answer
+ * means no row with that email existed at warm-up or was committed by this instance since, so the lookup is
+ * skipped; a positive answer (real or false positive) falls through to the {@code lower(email)} index.
+ * <p>
+ * The filter is advisory: rows committed by other instances, and emails freed by deletes, are not reflected.
+ * The unique index {@code ux_customers_email_lower} stays the final arbiter on insert/update.
+ * Until warm-up finishes (or with {@code command.email-filter.enabled=false}) every check goes to the database.
+ */
+@Slf4j
+@Component
+public class EmailRegistry {
+
+    private final CustomerRepository customers;
+    private final JdbcTemplate streaming;
+    private final TransactionTemplate readOnlyTx;
+    private final EmailBloomFilter filter;
+    private final Counter skippedLookups;
+
+    private volatile boolean ready;
+
+    public EmailRegistry(CustomerRepository customers, DataSource dataSource,
+                         PlatformTransactionManager txManager, EmailFilterProperties props, MeterRegistry registry) {
+        this.customers = customers;
+        this.streaming = new JdbcTemplate(dataSource);
+        this.streaming.setFetchSize(props.warmupFetchSize());
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.filter = props.enabled() ? new EmailBloomFilter(props.expectedInsertions(), props.falsePositiveRate()) : null;
+        this.skippedLookups = Counter.builder("command.email.lookups.skipped")
+                .description("Email uniqueness checks answered by the in-process filter")
+                .register(registry);
+    }
+
+    /**
+     * Filter key: {@code lower()} of the {@link #stored} form, i.e. what {@code ux_customers_email_lower} compares.
+     */
+    public static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Form written to {@code write.customers}: trimmed, case kept (null stays null).
+     */
+    public static String stored(String email) {
+        return email == null ? null : email.trim();
+    }
+
+    /**
+     * @return false only if the email is definitely not stored (as far as this instance knows)
+     */
+    public boolean mightExist(String email) {
+        if (!ready) return true;
+        final boolean maybe = filter.mightContain(normalize(email));
+        if (!maybe) skippedLookups.increment();
+        return maybe;
+    }
+
+    /**
+     * Filter first, then the {@code lower(email)} index for possible hits.
+     */
+    public boolean isTaken(String email) {
+        return mightExist(email) && customers.existsByLowerEmail(email.trim());
+    }
+
+    /**
+     * Bulk variant: one indexed query for the subset the filter cannot rule out.
+     *
+     * @return owner id per stored normalized email (emails not in the map are free)
+     */
+    public Map<String, UUID> owners(Collection<String> emails) {
+        final List<String> candidates = emails.stream()
+                .filter(this::mightExist)
+                .map(EmailRegistry::normalize)
+                .distinct()
+                .toList();
+        final Map<String, UUID> out = new HashMap<>();
+        if (candidates.isEmpty()) return out;
+        streaming.query("select lower(email), id from write.customers where lower(email) = any(?)",
+                rs -> {
+                    out.put(rs.getString(1), rs.getObject(2, UUID.class));
+                },
+                (Object) candidates.toArray(String[]::new));
+        return out;
+    }
+
+    @TransactionalEventListener
+    public void onCommitted(EmailsWritten written) {
+        if (filter == null) return;
+        for (String email : written.emails()) {
+            if (email != null) filter.add(normalize(email));
+        }
+    }
+
+    /**
+     * Warms in the background so startup is not blocked; commits that race with the scan are still added by
+     * {@link #onCommitted} because the listener is live before the scan starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (filter == null) return;
+        Thread.ofVirtual().name("email-filter-warmup").start(() -> {
+            final long t0 = System.nanoTime();
+            try {
+                final AtomicLong rows = new AtomicLong();
+                // Postgres only streams with a cursor inside a transaction; otherwise the driver buffers everything
+                readOnlyTx.executeWithoutResult(s -> streaming.query("select lower(email) from write.customers", rs -> {
+                    filter.add(rs.getString(1));
+                    rows.incrementAndGet();
+                }));
+                ready = true;
+                log.info("Email filter warmed with {} emails in {} ms ({} KiB)",
+                        rows.get(), (System.nanoTime() - t0) / 1_000_000, filter.sizeInBytes() / 1024);
+            } catch (Exception e) {
+                log.warn("Email filter warm-up failed; duplicate checks keep using the database", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import java.util.Collection;
+
+/**
+ * Published inside a write transaction with the emails it stored; {@link EmailRegistry} adds them after commit.
+ */
+public record EmailsWritten(Collection<String> emails) {
+}
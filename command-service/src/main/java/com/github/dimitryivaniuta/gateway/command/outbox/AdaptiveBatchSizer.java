@@ -0,0 +1,47 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+/**
+ * Picks the next outbox batch size between {@code min} and {@code max}.
+ * <p>
+ * - Full batch and fast send: backlog remains and the broker keeps up, so double the size.
+ * - Slow send (over target): halve it to keep per-batch latency and lock hold time bounded.
+ * - Partial batch: the backlog is drained; settle back towards what was actually there.
+ * <p>
+ * Not thread-safe; owned by the single relay thread.
+ */
+class AdaptiveBatchSizer {
+
+    private final int min;
+    private final int max;
+    private final long targetNanos;
+    private int current;
+
+    AdaptiveBatchSizer(int min, int max, long targetNanos) {
+        this.min = min;
+        this.max = max;
+        this.targetNanos = targetNanos;
+        this.current = min;
+    }
+
+    int current() {
+        return current;
+    }
+
+    /**
+     * Feeds back the outcome of the last batch and returns the next size.
+     *
+     * @param fetched   rows actually locked/sent
+     * @param sendNanos wall time of the send (including the DB mark step)
+     */
+    int onBatch(int fetched, long sendNanos) {
+        if (sendNanos > targetNanos) {
+            current = Math.max(min, current / 2);
+        } else if (fetched >= current) {
+            current = Math.min(max, current * 2);
+        } else {
+            // drained: decay halfway towards the observed backlog instead of dropping straight to min
+            current = Math.max(min, (current + fetched) / 2);
+        }
+        return current;
+    }
+}
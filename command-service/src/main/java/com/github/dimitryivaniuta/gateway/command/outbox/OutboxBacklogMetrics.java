@@ -0,0 +1,53 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxBacklog;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the outbox backlog as gauges: {@code outbox.backlog.size} (unpublished rows) and
+ * {@code outbox.backlog.oldest.age} (seconds since the oldest unpublished row was written; 0 when empty).
+ * <p>
+ * The table is sampled on a fixed delay ({@code outbox.metrics.sample-interval}) rather than on every scrape,
+ * so scrape frequency and the number of scrapers never translate into database load.
+ */
+@Slf4j
+@Component
+public class OutboxBacklogMetrics {
+
+    private final OutboxRepository outbox;
+    private final AtomicReference<OutboxBacklog> last = new AtomicReference<>(new OutboxBacklog(0, null));
+
+    public OutboxBacklogMetrics(OutboxRepository outbox, MeterRegistry registry) {
+        this.outbox = outbox;
+        Gauge.builder("outbox.backlog.size", last, ref -> ref.get().size())
+                .description("Unpublished outbox rows")
+                .register(registry);
+        Gauge.builder("outbox.backlog.oldest.age", last, OutboxBacklogMetrics::oldestAgeSeconds)
+                .description("Age of the oldest unpublished outbox row")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.metrics.sample-interval:PT10S}")
+    public void sample() {
+        try {
+            last.set(outbox.backlog());
+        } catch (Exception e) {
+            log.debug("Outbox backlog sample failed: {}", e.getMessage());
+        }
+    }
+
+    private static double oldestAgeSeconds(AtomicReference<OutboxBacklog> ref) {
+        final OffsetDateTime oldest = ref.get().oldestOccurredAt();
+        return oldest == null ? 0 : Duration.between(oldest, OffsetDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * What happens to outbox rows after publishing ({@code outbox.cleanup.*}).
+ *
+ * @param mode      {@code MARK}: flag {@code published=true} and let {@link OutboxPruner} delete later;
+ *                  {@code DELETE}: delete in the publishing transaction (smallest table, least vacuum churn)
+ * @param retention how long published rows are kept in {@code MARK} mode
+ * @param chunkSize max rows deleted per pruner statement/transaction
+ */
+@ConfigurationProperties(prefix = "outbox.cleanup")
+public record OutboxCleanupProperties(
+        @DefaultValue("MARK") Mode mode,
+        @DefaultValue("24h") Duration retention,
+        @DefaultValue("5000") int chunkSize
+) {
+    public enum Mode {MARK, DELETE}
+}
@@ -0,0 +1,74 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Drops superseded {@code CustomerUpdated} rows from a locked batch ({@code outbox.relay.coalesce=true}).
+ * <p>
+ * Update payloads carry the full state ({@code name}, {@code email}), so of a run of consecutive updates of one
+ * aggregate only the newest has to reach the (compacted) topic. A {@code CustomerCreated} or
+ * {@code CustomerDeleted} ends the run and is always sent, in its original position. Surviving rows keep batch
+ * order, so per-aggregate order is unchanged. Consumers see a version jump, so the publisher stamps the surviving
+ * update with the first version it replaces ({@code CustomerEventEnvelope.COALESCED_FROM_HEADER}) and the
+ * projection treats the jump as expected instead of a gap. Superseded rows are completed together with the sent
+ * ones in the publishing transaction.
+ */
+@Component
+public class OutboxCoalescer {
+
+    private static final String UPDATED = "CustomerUpdated";
+
+    private final Counter coalesced;
+
+    public OutboxCoalescer(MeterRegistry registry) {
+        this.coalesced = Counter.builder("outbox.relay.coalesced")
+                .description("Superseded CustomerUpdated rows completed without being sent")
+                .register(registry);
+    }
+
+    /**
+     * @param batch         rows in publish order ({@code occurred_at, id})
+     * @param coalescedFrom filled with, per surviving update that replaced others (by row id), the first version
+     *                      it replaces
+     * @return the rows to send, in the same order
+     */
+    List<Outbox> coalesce(List<Outbox> batch, Map<Long, Long> coalescedFrom) {
+        if (batch.size() < 2) return batch;
+
+        final Outbox[] kept = batch.toArray(Outbox[]::new);
+        // aggregate -> slot of its pending update, while the aggregate's latest row in the batch is an update
+        final Map<UUID, Integer> pendingUpdate = new HashMap<>();
+        int dropped = 0;
+        for (int i = 0; i < kept.length; i++) {
+            final Outbox o = kept[i];
+            if (UPDATED.equals(o.getEventType())) {
+                final Integer prev = pendingUpdate.put(o.getAggregateId(), i);
+                if (prev != null) {
+                    final Long from = coalescedFrom.remove(kept[prev].getId());
+                    coalescedFrom.put(o.getId(), from != null ? from : kept[prev].getVersion());
+                    kept[prev] = null;
+                    dropped++;
+                }
+            } else {
+                pendingUpdate.remove(o.getAggregateId());
+            }
+        }
+        if (dropped == 0) return batch;
+
+        coalesced.increment(dropped);
+        final List<Outbox> out = new ArrayList<>(kept.length - dropped);
+        for (Outbox o : kept) {
+            if (o != null) out.add(o);
+        }
+        return out;
+    }
+}
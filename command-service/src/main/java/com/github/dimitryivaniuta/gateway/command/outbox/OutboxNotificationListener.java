@@ -0,0 +1,101 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds one dedicated (non-pooled) connection that {@code LISTEN}s on the outbox channel and wakes the active
+ * relay ({@link OutboxRelayTrigger}) as soon as an inserting transaction commits (Postgres delivers NOTIFY on commit).
+ * <p>
+ * The connection is opened outside Hikari on purpose: it is parked in a blocking wait forever, which would
+ * otherwise pin a pool slot and trip leak detection. Lost connections are re-established; meanwhile the
+ * relay's poll interval still covers delivery.
+ */
+@Slf4j
+@Component
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    /**
+     * Raised by the {@code write.outbox} insert trigger; fixed by {@code V3__outbox_notify.sql}, so not configurable.
+     */
+    static final String CHANNEL = "outbox_inserted";
+
+    private final OutboxRelayTrigger relay;
+    private final OutboxRelayProperties props;
+    private final DataSourceProperties dataSource;
+    private final Environment env;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public OutboxNotificationListener(OutboxRelayTrigger relay, OutboxRelayProperties props,
+                                      DataSourceProperties dataSource, Environment env) {
+        this.relay = relay;
+        this.props = props;
+        this.dataSource = dataSource;
+        this.env = env;
+    }
+
+    @Override
+    public void start() {
+        if (!props.enabled() || !props.listenNotify()) {
+            return;
+        }
+        running = true;
+        worker = RelayThreads.named(env, "outbox-listen").start(this::loop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        final int waitMillis = (int) props.pollInterval().toMillis();
+        while (running) {
+            try (Connection con = DriverManager.getConnection(
+                    dataSource.determineUrl(), dataSource.determineUsername(), dataSource.determinePassword())) {
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                final PGConnection pg = con.unwrap(PGConnection.class);
+                log.info("Listening for outbox notifications on channel '{}'", CHANNEL);
+                relay.wakeUp(); // catch up on anything inserted while we were not listening
+
+                while (running) {
+                    PGNotification[] batch = pg.getNotifications(waitMillis);
+                    if (batch != null && batch.length > 0) {
+                        relay.wakeUp();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) return;
+                log.warn("Outbox LISTEN connection lost ({}); reconnecting in {} ms", ex.getMessage(), waitMillis);
+                try {
+                    Thread.sleep(waitMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
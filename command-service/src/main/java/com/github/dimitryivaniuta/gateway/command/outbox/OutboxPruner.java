@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Deletes published outbox rows past {@code outbox.cleanup.retention}.
+ * Works in bounded chunks (one short transaction each) so it never holds long locks or bloats WAL in one go.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxPruner {
+
+    private final OutboxRepository outbox;
+    private final OutboxCleanupProperties props;
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup.prune-interval:PT5M}",
+            initialDelayString = "${outbox.cleanup.prune-interval:PT5M}")
+    public void prune() {
+        final OffsetDateTime threshold = OffsetDateTime.now().minus(props.retention());
+        int total = 0;
+        int removed;
+        do {
+            removed = outbox.prunePublishedChunk(threshold, props.chunkSize());
+            total += removed;
+        } while (removed >= props.chunkSize() && !Thread.currentThread().isInterrupted());
+
+        if (total > 0) {
+            log.info("Pruned {} published outbox rows older than {}", total, threshold);
+        }
+    }
+}
@@ -1,53 +1,329 @@
 package com.github.dimitryivaniuta.gateway.command.outbox;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
 import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxRepository;
 import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
 import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
-import lombok.RequiredArgsConstructor;
+import com.github.dimitryivaniuta.gateway.common.event.wire.RawCustomerEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Sends outbox rows to Kafka, one batch per call. Cadence and batch size are decided by {@link OutboxRelay}.
+ * <p>
+ * In the transactional flavours the DB transaction spans lock -> Kafka send -> mark, so the {@code SKIP LOCKED} row
+ * locks are held until the rows are flagged and concurrent relays never pick the same rows.
+ * In {@code outbox.cleanup.mode=DELETE} the rows are deleted in that same transaction instead of flagged.
+ * <p>
+ * Three flavours:
+ * - {@link #publishBatch(int)}: one Kafka transaction per batch (exactly-once towards read_committed consumers).
+ * - {@link #publishPipelined(int, int, int)}: idempotent, non-transactional sends for one hash lane, outside any DB
+ * transaction; rows are marked in send order as their sends are acknowledged while the lane keeps reading
+ * (at-least-once).
+ * - {@link #publishShard}: like {@code publishBatch} for one leased outbox shard, on that shard's own
+ * transactional producer ({@link OutboxShardRelay}).
+ * <p>
+ * With {@code outbox.relay.coalesce=true} superseded updates are completed without being sent
+ * ({@link OutboxCoalescer}); the returned list still holds every completed row.
+ * <p>
+ * Rows go out as {@link RawCustomerEvent}: the stored {@code jsonb} text is handed to the codec untouched
+ * (spliced into JSON, or stream-parsed for the binary format), so no {@code JsonNode} is built per row.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class OutboxPublisher {
     private final OutboxRepository outbox;
     private final KafkaTemplate<String, Object> kafka;
-    private final ObjectMapper om;
+    private final DefaultKafkaProducerFactory<String, Object> pipelineFactory;
+    private final KafkaTemplate<String, Object> pipelineKafka;
+    private final Map<Integer, PipelineLane> pipelineLanes = new ConcurrentHashMap<>();
+    private final OutboxCleanupProperties cleanup;
+    private final OutboxRelayProperties relay;
+    private final OutboxCoalescer coalescer;
 
-    @Scheduled(fixedDelayString = "1000") // simple poller for demo
-    public void publishBatch() {
-        List<Outbox> batch = outbox.lockNextUnpublished(200);
-        if (batch.isEmpty()) return;
+    public OutboxPublisher(OutboxRepository outbox,
+                           KafkaTemplate<String, Object> kafka,
+                           ProducerFactory<String, Object> producerFactory,
+                           OutboxCleanupProperties cleanup,
+                           OutboxRelayProperties relay,
+                           OutboxCoalescer coalescer) {
+        this.outbox = outbox;
+        this.kafka = kafka;
+        this.pipelineFactory = new DefaultKafkaProducerFactory<>(pipelineConfig(producerFactory));
+        this.pipelineKafka = new KafkaTemplate<>(pipelineFactory);
+        this.cleanup = cleanup;
+        this.relay = relay;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * @return the rows that were published (empty when nothing was pending)
+     */
+    @Transactional
+    public List<Outbox> publishBatch(int batchSize) {
+        List<Outbox> batch = outbox.lockNextUnpublished(batchSize);
+        if (batch.isEmpty()) return batch;
 
         kafka.executeInTransaction(tpl -> {
-            batch.forEach(o -> tpl.send(CustomerTopics.EVENTS, o.getAggregateId().toString(), toEnvelope(o)));
-            outbox.markPublished(batch.stream().map(Outbox::getId).toList());
+            final Map<Long, Long> coalescedFrom = new HashMap<>();
+            toSend(batch, coalescedFrom).forEach(o -> tpl.send(record(o, coalescedFrom)));
+            complete(batch.stream().map(Outbox::getId).toList());
             return null;
         });
+        return batch;
     }
 
-    private CustomerEventEnvelope toEnvelope(Outbox o) {
-        return CustomerEventEnvelope.builder()
-                .eventId(o.getEventId().toString())
-                .aggregateId(o.getAggregateId().toString())
-                .eventType(o.getEventType())
-                .version(o.getVersion())
-                .timestampUtcMillis(System.currentTimeMillis())
-                .actor("command-service")
-                .payload(parse(o.getPayload()))
-                .build();
+    /**
+     * Publishes the next batch of {@code shard} in one Kafka transaction of the shard's producer. Reads nothing
+     * unless {@code owner} holds the shard's lease; if a newer owner has fenced {@code shardKafka}, the commit fails
+     * and the DB transaction rolls back, so rows are never marked by a zombie.
+     */
+    @Transactional
+    public List<Outbox> publishShard(int batchSize, int shard, String owner, KafkaTemplate<String, Object> shardKafka) {
+        List<Outbox> batch = outbox.lockNextUnpublishedInShard(batchSize, shard, owner);
+        if (batch.isEmpty()) return batch;
+
+        shardKafka.executeInTransaction(tpl -> {
+            final Map<Long, Long> coalescedFrom = new HashMap<>();
+            toSend(batch, coalescedFrom).forEach(o -> tpl.send(record(o, coalescedFrom)));
+            complete(batch.stream().map(Outbox::getId).toList());
+            return null;
+        });
+        return batch;
+    }
+
+    /**
+     * Hands the next batch of lane {@code lane} to the non-transactional producer and returns without waiting.
+     * <p>
+     * Not transactional on purpose: no DB transaction or row lock spans the send. The lane remembers its rows in
+     * send order, skips them on later reads and marks (one statement per call) the oldest ones whose sends, and
+     * every send before them, were acknowledged, so the next batch is read and sent while earlier ones are still on
+     * the wire. Within a lane sends are issued in row order to an idempotent producer
+     * ({@code max.in.flight.requests.per.connection <= 5}), which keeps per-aggregate order.
+     * <p>
+     * A failed send fences the lane: the next call sends nothing new, waits (up to {@code send-timeout}, and again
+     * on later calls) until every outstanding send has settled, marks the acknowledged rows before the first failure,
+     * forgets the rest and rethrows. The following call reads again from the oldest unmarked row, so the failed row
+     * goes out before anything newer of its aggregate; newer rows that had already been acknowledged are sent again
+     * after it (at-least-once), which leaves the newest event last in the topic. At most
+     * {@code outbox.relay.max-in-flight} rows per lane are outstanding; beyond that the call waits for them first.
+     * <p>
+     * The returned rows were sent, not necessarily acknowledged yet.
+     */
+    public List<Outbox> publishPipelined(int batchSize, int lane, int lanes) {
+        final PipelineLane state = pipelineLanes.computeIfAbsent(lane, k -> new PipelineLane());
+        settle(state);
+        if (state.sent.size() >= relay.maxInFlight()) {
+            awaitQuietly(state.all());
+            settle(state);
+        }
+
+        final List<Outbox> batch = outbox.findNextUnpublished(batchSize, lane, lanes, state.ids);
+        if (batch.isEmpty()) return batch;
+
+        final Map<Long, Long> coalescedFrom = new HashMap<>();
+        final List<Outbox> sending = toSend(batch, coalescedFrom);
+        final Set<Long> sendingIds = new HashSet<>(sending.size() * 2);
+        sending.forEach(o -> sendingIds.add(o.getId()));
+        for (Outbox o : batch) {
+            if (!sendingIds.contains(o.getId())) {
+                // coalesced away: complete without a send, still in row order
+                state.add(o.getId(), CompletableFuture.completedFuture(null));
+                continue;
+            }
+            final CompletableFuture<?> send = pipelineKafka.send(record(o, coalescedFrom));
+            send.whenComplete((r, ex) -> {
+                if (ex != null) state.failure.compareAndSet(null, ex);
+            });
+            state.add(o.getId(), send);
+        }
+        return batch;
     }
 
-    private Object parse(String json) {
+    /**
+     * Waits for the sends still in flight and marks them, e.g. before shutdown.
+     */
+    @PreDestroy
+    void close() {
         try {
-            return om.readTree(json);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            pipelineKafka.flush();
+            pipelineLanes.values().forEach(state -> {
+                awaitQuietly(state.all());
+                try {
+                    settle(state);
+                } catch (RuntimeException e) {
+                    log.warn("Pipelined outbox sends failed before shutdown; the rows are sent again on restart", e);
+                }
+            });
+        } finally {
+            pipelineFactory.destroy();
         }
     }
+
+    /**
+     * Marks the acknowledged prefix of the lane's sends. After a send failure, first waits for every outstanding
+     * send; the lane stays fenced (this throws before anything new is read) until they have all settled, then its
+     * unmarked rows are forgotten so they are read again from the oldest one.
+     */
+    private void settle(PipelineLane state) {
+        final Throwable failure = state.failure.get();
+        if (failure != null) {
+            awaitQuietly(state.all());
+            if (!state.settled()) {
+                throw new IllegalStateException(
+                        "Pipelined outbox send failed; waiting for the lane's other sends", failure);
+            }
+        }
+
+        final List<Sent> done = new ArrayList<>();
+        for (Sent head; (head = state.sent.peekFirst()) != null && head.acknowledged(); ) {
+            done.add(state.sent.pollFirst());
+        }
+        if (!done.isEmpty()) {
+            try {
+                complete(done.stream().map(Sent::id).toList());
+            } catch (RuntimeException e) {
+                for (int i = done.size() - 1; i >= 0; i--) {
+                    state.sent.addFirst(done.get(i)); // marked by a later call
+                }
+                throw e;
+            }
+            done.forEach(d -> state.ids.remove(d.id()));
+        }
+
+        if (failure != null) {
+            state.sent.clear();
+            state.ids.clear();
+            state.failure.set(null);
+            throw new IllegalStateException(
+                    "Pipelined outbox send failed; the lane resumes from the oldest unpublished row", failure);
+        }
+    }
+
+    /**
+     * Idempotent, non-transactional copy of the main producer's config. Idempotence requires at most five
+     * in-flight requests per connection, and keeps per-partition order across retries within that bound.
+     */
+    private static Map<String, Object> pipelineConfig(ProducerFactory<String, Object> producerFactory) {
+        final Map<String, Object> config = new HashMap<>(producerFactory.getConfigurationProperties());
+        config.remove(ProducerConfig.TRANSACTIONAL_ID_CONFIG);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.merge(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                (configured, max) -> Math.min(Integer.parseInt(configured.toString()), 5));
+        return config;
+    }
+
+    /**
+     * Pipelined state of one relay lane: rows sent and not yet marked, oldest first, and the first send failure.
+     * Only the lane's worker touches {@code sent}/{@code ids}; the producer's I/O thread only sets {@code failure}.
+     */
+    private static final class PipelineLane {
+        private final Deque<Sent> sent = new ArrayDeque<>();
+        private final Set<Long> ids = new HashSet<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private void add(Long id, CompletableFuture<?> ack) {
+            sent.addLast(new Sent(id, ack));
+            ids.add(id);
+        }
+
+        private CompletableFuture<Void> all() {
+            return CompletableFuture.allOf(sent.stream().map(Sent::ack).toArray(CompletableFuture[]::new));
+        }
+
+        private boolean settled() {
+            return sent.stream().allMatch(s -> s.ack().isDone());
+        }
+    }
+
+    private record Sent(Long id, CompletableFuture<?> ack) {
+
+        private boolean acknowledged() {
+            return ack.isDone() && !ack.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * The rows of a locked batch that actually go to Kafka; all of them are completed regardless.
+     */
+    private List<Outbox> toSend(List<Outbox> batch, Map<Long, Long> coalescedFrom) {
+        return relay.coalesce() ? coalescer.coalesce(batch, coalescedFrom) : batch;
+    }
+
+    /**
+     * A surviving coalesced update carries the first version it replaces, so consumers expect the jump.
+     */
+    private ProducerRecord<String, Object> record(Outbox o, Map<Long, Long> coalescedFrom) {
+        final ProducerRecord<String, Object> out =
+                new ProducerRecord<>(CustomerTopics.EVENTS, o.getAggregateId().toString(), toWireEvent(o));
+        final Long from = coalescedFrom.get(o.getId());
+        if (from != null) {
+            out.headers().add(CustomerEventEnvelope.COALESCED_FROM_HEADER,
+                    String.valueOf(from).getBytes(StandardCharsets.US_ASCII));
+        }
+        return out;
+    }
+
+    /**
+     * Waits up to {@code send-timeout}; failures are not rethrown here, the send callbacks record them.
+     */
+    private void awaitQuietly(CompletableFuture<Void> all) {
+        try {
+            all.get(relay.sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for outbox sends", e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Waiting for pipelined outbox sends ended early", e);
+        }
+    }
+
+    private void complete(List<Long> ids) {
+        if (cleanup.mode() == OutboxCleanupProperties.Mode.DELETE) {
+            outbox.deletePublished(ids);
+        } else {
+            outbox.markPublished(ids);
+        }
+    }
+
+    /**
+     * The envelope timestamp is the row's {@code occurred_at} (database time of the insert), not the send time, so
+     * consumers can measure commit-to-projection latency from it.
+     */
+    // package-private for the benchmarks module
+    RawCustomerEvent toWireEvent(Outbox o) {
+        return RawCustomerEvent.builder()
+                .eventId(o.getEventId())
+                .aggregateId(o.getAggregateId())
+                .eventType(o.getEventType())
+                .version(o.getVersion())
+                .timestampUtcMillis(o.getOccurredAt().toInstant().toEpochMilli())
+                .actor(o.getActor() != null ? o.getActor() : "command-service")
+                .payloadJson(o.getPayload())
+                .build();
+    }
 }
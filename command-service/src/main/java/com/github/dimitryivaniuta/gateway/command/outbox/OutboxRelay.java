@@ -0,0 +1,211 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@link OutboxPublisher}: drains back-to-back while full batches keep coming, then sleeps until
+ * {@link #wakeUp()} (Postgres NOTIFY via {@link OutboxNotificationListener}) or the fallback poll interval.
+ * Batch size adapts between {@code outbox.relay.min-batch} and {@code max-batch} ({@link AdaptiveBatchSizer}).
+ * <p>
+ * In {@code PIPELINED} mode one worker thread runs per hash lane ({@code outbox.relay.lanes}), each with its own
+ * sizer, and a lane keeps reading while its earlier sends are unacknowledged ({@link OutboxPublisher#publishPipelined});
+ * {@code TRANSACTIONAL} mode runs a single lane.
+ * Lanes only partition work inside one instance; for several instances use {@link OutboxShardRelay}.
+ * <p>
+ * Metrics: {@code outbox.relay.batch.size} (gauge, tag lane), {@code outbox.relay.drain.loops} (counter;
+ * rate = loops/s), {@code outbox.relay.lag} (age of the oldest row in each batch), {@code outbox.relay.send}
+ * (duration of one publish call, tag mode), {@code outbox.relay.published} (rows per non-empty batch) and
+ * {@code outbox.relay.events}. Timers publish histograms so percentiles can be aggregated across instances.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "outbox.shards", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class OutboxRelay implements SmartLifecycle, OutboxRelayTrigger {
+
+    private final OutboxPublisher publisher;
+    private final OutboxRelayProperties props;
+    private final Environment env;
+    private final List<Lane> lanes = new ArrayList<>();
+
+    private final Counter drainLoops;
+    private final Counter events;
+    private final Timer lag;
+    private final Timer send;
+    private final DistributionSummary publishedPerBatch;
+
+    private volatile boolean running;
+
+    public OutboxRelay(OutboxPublisher publisher, OutboxRelayProperties props, MeterRegistry registry, Environment env) {
+        this.publisher = publisher;
+        this.props = props;
+        this.env = env;
+
+        this.drainLoops = Counter.builder("outbox.relay.drain.loops")
+                .description("Drain iterations (lock + send + mark)").register(registry);
+        this.events = Counter.builder("outbox.relay.events")
+                .description("Outbox rows published").register(registry);
+        this.lag = Timer.builder("outbox.relay.lag")
+                .description("Age of the oldest outbox row at publish time")
+                .publishPercentileHistogram().register(registry);
+        this.send = Timer.builder("outbox.relay.send")
+                .description("Wall time of one publish batch (lock + send + mark)")
+                .tag("mode", props.mode().name().toLowerCase())
+                .publishPercentileHistogram().register(registry);
+        this.publishedPerBatch = DistributionSummary.builder("outbox.relay.published")
+                .description("Rows published per non-empty batch")
+                .publishPercentileHistogram().register(registry);
+
+        for (int i = 0; i < props.effectiveLanes(); i++) {
+            Lane lane = new Lane(i);
+            Gauge.builder("outbox.relay.batch.size", lane.batchSize, AtomicInteger::get)
+                    .description("Current adaptive outbox batch size")
+                    .tag("lane", String.valueOf(i))
+                    .register(registry);
+            lanes.add(lane);
+        }
+    }
+
+    @Override
+    public void wakeUp() {
+        lanes.forEach(Lane::wakeUp);
+    }
+
+    @Override
+    public void start() {
+        if (!props.enabled()) {
+            log.info("Outbox relay disabled (outbox.relay.enabled=false)");
+            return;
+        }
+        running = true;
+        lanes.forEach(Lane::start);
+        log.info("Outbox relay started: mode={} lanes={}", props.mode(), lanes.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        lanes.forEach(Lane::interrupt);
+        lanes.forEach(lane -> lane.join(props.pollInterval().toMillis() * 5));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void recordLag(List<Outbox> published) {
+        OffsetDateTime oldest = published.getFirst().getOccurredAt();
+        for (Outbox o : published) {
+            if (o.getOccurredAt().isBefore(oldest)) oldest = o.getOccurredAt();
+        }
+        lag.record(Duration.between(oldest, OffsetDateTime.now()));
+    }
+
+    /**
+     * One relay worker. Sends of its lane are issued from this thread only, which keeps per-aggregate order.
+     */
+    private final class Lane {
+        private final int index;
+        private final AdaptiveBatchSizer sizer;
+        private final Semaphore wake = new Semaphore(0);
+        private final AtomicInteger batchSize = new AtomicInteger();
+        private Thread worker;
+
+        Lane(int index) {
+            this.index = index;
+            this.sizer = new AdaptiveBatchSizer(props.minBatch(), props.maxBatch(), props.targetSendLatency().toNanos());
+            this.batchSize.set(sizer.current());
+        }
+
+        void wakeUp() {
+            if (wake.availablePermits() == 0) {
+                wake.release();
+            }
+        }
+
+        void start() {
+            worker = RelayThreads.named(env, "outbox-relay-" + index).start(this::loop);
+        }
+
+        void interrupt() {
+            if (worker != null) worker.interrupt();
+        }
+
+        void join(long millis) {
+            if (worker == null) return;
+            try {
+                worker.join(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void loop() {
+            final long pollMillis = props.pollInterval().toMillis();
+            while (running) {
+                try {
+                    if (drainOnce()) {
+                        continue; // full batch: more rows likely waiting
+                    }
+                    if (wake.tryAcquire(pollMillis, TimeUnit.MILLISECONDS)) {
+                        wake.drainPermits();
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ex) {
+                    log.error("Outbox relay lane {} iteration failed; retrying in {} ms", index, pollMillis, ex);
+                    try {
+                        Thread.sleep(pollMillis);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true when the batch came back full, i.e. the backlog is probably not drained yet
+         */
+        private boolean drainOnce() {
+            final int requested = sizer.current();
+            final long t0 = System.nanoTime();
+            final List<Outbox> published = props.mode() == OutboxRelayProperties.Mode.PIPELINED
+                    ? publisher.publishPipelined(requested, index, lanes.size())
+                    : publisher.publishBatch(requested);
+            final long took = System.nanoTime() - t0;
+
+            drainLoops.increment();
+            if (published.isEmpty()) {
+                batchSize.set(sizer.onBatch(0, took));
+                return false;
+            }
+
+            send.record(took, TimeUnit.NANOSECONDS);
+            events.increment(published.size());
+            publishedPerBatch.record(published.size());
+            recordLag(published);
+            batchSize.set(sizer.onBatch(published.size(), took));
+            return published.size() >= requested;
+        }
+    }
+}
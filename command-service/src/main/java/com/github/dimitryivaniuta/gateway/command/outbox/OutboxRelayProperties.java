@@ -0,0 +1,59 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Tuning knobs for {@link OutboxRelay} ({@code outbox.relay.*}).
+ *
+ * @param enabled           start the relay thread at all
+ * @param minBatch          lower bound for the adaptive batch size
+ * @param maxBatch          upper bound for the adaptive batch size
+ * @param targetSendLatency batch send time the sizer steers towards; slower batches shrink the size
+ * @param pollInterval      fallback poll when no notification arrives (also the retry delay after errors)
+ * @param listenNotify      wake up on Postgres {@code NOTIFY} in addition to the fallback poll
+ * @param mode              {@code TRANSACTIONAL}: one Kafka transaction per batch, single lane;
+ *                          {@code PIPELINED}: idempotent non-transactional sends, {@code lanes} batches in flight
+ * @param lanes             concurrent hash lanes in {@code PIPELINED} mode (ignored otherwise)
+ * @param sendTimeout       max wait for in-flight pipelined sends when a lane is at {@code maxInFlight} or shutting down
+ * @param maxInFlight       rows per pipelined lane sent but not yet acknowledged and marked
+ * @param coalesce          send only the newest of consecutive {@code CustomerUpdated} rows per aggregate in a
+ *                          batch and complete the superseded ones unsent ({@link OutboxCoalescer})
+ */
+@ConfigurationProperties(prefix = "outbox.relay")
+public record OutboxRelayProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") int minBatch,
+        @DefaultValue("2000") int maxBatch,
+        @DefaultValue("250ms") Duration targetSendLatency,
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("true") boolean listenNotify,
+        @DefaultValue("TRANSACTIONAL") Mode mode,
+        @DefaultValue("4") int lanes,
+        @DefaultValue("30s") Duration sendTimeout,
+        @DefaultValue("10000") int maxInFlight,
+        @DefaultValue("false") boolean coalesce
+) {
+    public OutboxRelayProperties {
+        if (minBatch < 1 || maxBatch < minBatch) {
+            throw new IllegalArgumentException("outbox.relay requires 1 <= min-batch <= max-batch");
+        }
+        if (lanes < 1) {
+            throw new IllegalArgumentException("outbox.relay.lanes must be >= 1");
+        }
+        if (maxInFlight < maxBatch) {
+            throw new IllegalArgumentException("outbox.relay.max-in-flight must be >= max-batch");
+        }
+    }
+
+    /**
+     * Number of relay threads/lanes actually started.
+     */
+    public int effectiveLanes() {
+        return mode == Mode.PIPELINED ? lanes : 1;
+    }
+
+    public enum Mode {TRANSACTIONAL, PIPELINED}
+}
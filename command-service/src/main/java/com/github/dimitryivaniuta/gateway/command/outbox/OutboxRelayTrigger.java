@@ -0,0 +1,13 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+/**
+ * Whatever relay is active ({@link OutboxRelay} or {@link OutboxShardRelay}); woken by
+ * {@link OutboxNotificationListener}.
+ */
+public interface OutboxRelayTrigger {
+
+    /**
+     * Signals that new rows may be available. Cheap and safe to call from any thread; coalesces bursts.
+     */
+    void wakeUp();
+}
@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Sharded multi-instance relay ({@code outbox.shards.*}).
+ *
+ * @param enabled               run {@link OutboxShardRelay} instead of {@link OutboxRelay}
+ * @param count                 number of shards; keep equal to the partition count of the events topic so that each
+ *                              partition has exactly one writer (the shard of a row is its key's Kafka partition)
+ * @param instanceId            member id in {@code write.outbox_publishers}; blank = host name + random suffix
+ * @param heartbeatInterval     how often membership is refreshed, leases renewed and shards rebalanced
+ * @param leaseTtl              lease / membership expiry; a crashed instance's shards move after at most this long
+ * @param transactionalIdPrefix per-shard Kafka transactional id is {@code <prefix><shard>-0}; a new owner fences
+ *                              the previous one's producer
+ */
+@ConfigurationProperties(prefix = "outbox.shards")
+public record OutboxShardProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("12") int count,
+        @DefaultValue("") String instanceId,
+        @DefaultValue("3s") Duration heartbeatInterval,
+        @DefaultValue("15s") Duration leaseTtl,
+        @DefaultValue("customers-outbox-tx-shard-") String transactionalIdPrefix
+) {
+    public OutboxShardProperties {
+        if (count < 1) {
+            throw new IllegalArgumentException("outbox.shards.count must be >= 1");
+        }
+        if (leaseTtl.compareTo(heartbeatInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("outbox.shards.lease-ttl must be at least twice the heartbeat interval");
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
+import com.github.dimitryivaniuta.gateway.command.customer.repo.OutboxLeaseRepository;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.DefaultTransactionIdSuffixStrategy;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-instance relay ({@code outbox.shards.enabled=true}): the outbox is split into {@code outbox.shards.count}
+ * shards (a row's shard is its key's Kafka partition, see {@link OutboxSharding}) and every shard is published by
+ * exactly one instance at a time.
+ * <p>
+ * A coordinator thread heartbeats into {@code write.outbox_publishers} every {@code heartbeat-interval}, renews this
+ * instance's leases in {@code write.outbox_shard_leases} and rebalances: with the live members sorted by id, member
+ * {@code i} of {@code m} wants the shards {@code s % m == i}. Unwanted shards are finished and released, wanted
+ * free (or expired) shards are acquired, so shards move within one interval when instances join or leave gracefully
+ * and within {@code lease-ttl} when one dies.
+ * <p>
+ * Each owned shard runs one worker thread with its own adaptive batch size and its own transactional producer
+ * ({@code <prefix><shard>-0}). Acquiring a shard initializes that producer first, which fences the previous owner's
+ * producer: a zombie can neither commit to Kafka nor (since its DB transaction then rolls back) mark rows.
+ * Shard workers always publish transactionally; {@code outbox.relay.mode} applies to {@link OutboxRelay} only.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "outbox.shards", name = "enabled", havingValue = "true")
+public class OutboxShardRelay implements SmartLifecycle, OutboxRelayTrigger {
+
+    private final OutboxPublisher publisher;
+    private final OutboxLeaseRepository leases;
+    private final OutboxRelayProperties relayProps;
+    private final OutboxShardProperties props;
+    private final ProducerFactory<String, Object> producerFactory;
+    private final KafkaAdmin kafkaAdmin;
+    private final Environment env;
+    private final String instanceId;
+
+    private final Map<Integer, ShardWorker> workers = new ConcurrentHashMap<>();
+    private final Set<Integer> stopping = ConcurrentHashMap.newKeySet();
+
+    private final Counter events;
+    private final Timer send;
+
+    private volatile boolean running;
+    private Thread coordinator;
+
+    public OutboxShardRelay(OutboxPublisher publisher,
+                            OutboxLeaseRepository leases,
+                            OutboxRelayProperties relayProps,
+                            OutboxShardProperties props,
+                            ProducerFactory<String, Object> producerFactory,
+                            KafkaAdmin kafkaAdmin,
+                            MeterRegistry registry,
+                            Environment env) {
+        this.publisher = publisher;
+        this.leases = leases;
+        this.relayProps = relayProps;
+        this.props = props;
+        this.producerFactory = producerFactory;
+        this.kafkaAdmin = kafkaAdmin;
+        this.env = env;
+        this.instanceId = props.instanceId().isBlank() ? defaultInstanceId() : props.instanceId();
+
+        this.events = Counter.builder("outbox.relay.events")
+                .description("Outbox rows published").register(registry);
+        this.send = Timer.builder("outbox.relay.send")
+                .description("Wall time of one publish batch (lock + send + mark)")
+                .tag("mode", "sharded")
+                .publishPercentileHistogram().register(registry);
+        Gauge.builder("outbox.shards.owned", workers, Map::size)
+                .description("Outbox shards leased by this instance")
+                .register(registry);
+    }
+
+    @Override
+    public void wakeUp() {
+        workers.values().forEach(ShardWorker::wakeUp);
+    }
+
+    @Override
+    public void start() {
+        if (!relayProps.enabled()) {
+            log.info("Outbox relay disabled (outbox.relay.enabled=false)");
+            return;
+        }
+        checkPartitions();
+        leases.ensureShards(props.count());
+        running = true;
+        coordinator = RelayThreads.named(env, "outbox-shard-coordinator").start(this::coordinate);
+        log.info("Sharded outbox relay started: instance={} shards={}", instanceId, props.count());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (coordinator != null) {
+            coordinator.interrupt();
+            join(coordinator, props.heartbeatInterval().toMillis() * 2);
+        }
+        workers.values().forEach(ShardWorker::signalStop);
+        workers.values().forEach(w -> w.awaitStop(relayProps.sendTimeout().toMillis()));
+        workers.clear();
+        try {
+            leases.leave(instanceId);
+        } catch (Exception e) {
+            log.warn("Could not release outbox shard leases on shutdown; they expire after {}", props.leaseTtl(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void coordinate() {
+        final long intervalMillis = props.heartbeatInterval().toMillis();
+        while (running) {
+            try {
+                rebalance();
+            } catch (Exception e) {
+                log.warn("Outbox shard rebalance failed; retrying in {} ms", intervalMillis, e);
+            }
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * One coordinator round; never blocks on a worker (stops are finished asynchronously).
+     */
+    private void rebalance() {
+        leases.heartbeat(instanceId);
+        final List<String> members = leases.liveInstances(props.leaseTtl());
+        final int index = members.indexOf(instanceId);
+        final Set<Integer> held = leases.renew(instanceId, props.leaseTtl());
+
+        for (Integer shard : Set.copyOf(workers.keySet())) {
+            if (!held.contains(shard)) {
+                log.warn("Lost lease on outbox shard {}; stopping its worker", shard);
+                stopAsync(shard, false);
+            }
+        }
+        for (int shard = 0; shard < props.count(); shard++) {
+            final boolean wanted = index >= 0 && shard % members.size() == index;
+            if (!wanted && held.contains(shard)) {
+                stopAsync(shard, true);
+            } else if (wanted && !workers.containsKey(shard) && !stopping.contains(shard)
+                    && leases.acquire(shard, instanceId, props.leaseTtl())) {
+                startWorker(shard);
+            }
+        }
+    }
+
+    private void startWorker(int shard) {
+        final ShardWorker worker = new ShardWorker(shard);
+        try {
+            worker.start();
+            workers.put(shard, worker);
+            log.info("Acquired outbox shard {}", shard);
+        } catch (Exception e) {
+            log.warn("Could not start worker for outbox shard {}; releasing it", shard, e);
+            worker.close();
+            leases.release(shard, instanceId);
+        }
+    }
+
+    /**
+     * Stops a worker after its in-flight batch and, when the shard is handed over voluntarily, releases the lease
+     * afterwards so the next owner never overlaps with it.
+     */
+    private void stopAsync(int shard, boolean release) {
+        final ShardWorker worker = workers.remove(shard);
+        if (worker == null) {
+            if (release) leases.release(shard, instanceId);
+            return;
+        }
+        stopping.add(shard);
+        worker.signalStop();
+        Thread.ofVirtual().name("outbox-shard-stop-" + shard).start(() -> {
+            try {
+                worker.awaitStop(relayProps.sendTimeout().toMillis());
+                if (release) {
+                    leases.release(shard, instanceId);
+                    log.info("Released outbox shard {}", shard);
+                }
+            } catch (Exception e) {
+                log.warn("Releasing outbox shard {} failed; it expires after {}", shard, props.leaseTtl(), e);
+            } finally {
+                stopping.remove(shard);
+            }
+        });
+    }
+
+    private void checkPartitions() {
+        try {
+            final int partitions = kafkaAdmin.describeTopics(CustomerTopics.EVENTS)
+                    .get(CustomerTopics.EVENTS).partitions().size();
+            if (partitions != props.count()) {
+                log.warn("outbox.shards.count={} but {} has {} partitions: per-key order still holds, but partitions "
+                        + "get more than one writer", props.count(), CustomerTopics.EVENTS, partitions);
+            }
+        } catch (Exception e) {
+            log.debug("Could not describe {}: {}", CustomerTopics.EVENTS, e.getMessage());
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "relay";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static void join(Thread thread, long millis) {
+        try {
+            thread.join(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publishes one shard. Never has more than one batch in flight, which keeps per-aggregate order.
+     */
+    private final class ShardWorker {
+        private final int shard;
+        private final DefaultKafkaProducerFactory<String, Object> kafkaFactory;
+        private final KafkaTemplate<String, Object> kafka;
+        private final AdaptiveBatchSizer sizer;
+        private final Semaphore wake = new Semaphore(0);
+        private volatile boolean active = true;
+        private Thread thread;
+
+        ShardWorker(int shard) {
+            this.shard = shard;
+            this.kafkaFactory = new DefaultKafkaProducerFactory<>(producerFactory.getConfigurationProperties());
+            this.kafkaFactory.setTransactionIdPrefix(props.transactionalIdPrefix() + shard + "-");
+            // a single, always reused suffix: the shard's transactional id is stable across producer restarts
+            this.kafkaFactory.setTransactionIdSuffixStrategy(new DefaultTransactionIdSuffixStrategy(1));
+            this.kafka = new KafkaTemplate<>(kafkaFactory);
+            this.sizer = new AdaptiveBatchSizer(relayProps.minBatch(), relayProps.maxBatch(),
+                    relayProps.targetSendLatency().toNanos());
+        }
+
+        void start() {
+            kafka.executeInTransaction(tpl -> null); // initTransactions now: fences the previous owner
+            thread = RelayThreads.named(env, "outbox-shard-" + shard).start(this::loop);
+        }
+
+        void wakeUp() {
+            if (wake.availablePermits() == 0) {
+                wake.release();
+            }
+        }
+
+        void signalStop() {
+            active = false;
+            wake.release();
+        }
+
+        void awaitStop(long millis) {
+            if (thread != null) join(thread, millis);
+            close();
+        }
+
+        void close() {
+            kafkaFactory.destroy();
+        }
+
+        private void loop() {
+            final long pollMillis = relayProps.pollInterval().toMillis();
+            while (active && running) {
+                try {
+                    if (drainOnce()) {
+                        continue;
+                    }
+                    if (wake.tryAcquire(pollMillis, TimeUnit.MILLISECONDS)) {
+                        wake.drainPermits();
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ex) {
+                    log.error("Outbox shard {} iteration failed; retrying in {} ms", shard, pollMillis, ex);
+                    try {
+                        Thread.sleep(pollMillis);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean drainOnce() {
+            final int requested = sizer.current();
+            final long t0 = System.nanoTime();
+            final List<Outbox> published = publisher.publishShard(requested, shard, instanceId, kafka);
+            final long took = System.nanoTime() - t0;
+
+            if (published.isEmpty()) {
+                sizer.onBatch(0, took);
+                return false;
+            }
+            send.record(took, TimeUnit.NANOSECONDS);
+            events.increment(published.size());
+            sizer.onBatch(published.size(), took);
+            return published.size() >= requested;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Maps an aggregate to its outbox shard with the same function Kafka's default partitioner applies to the record
+ * key ({@code toPositive(murmur2(key)) % n}, key = aggregate id as UTF-8 string). With
+ * {@code outbox.shards.count} equal to the topic's partition count, shard == partition.
+ * Computed for every outbox row, whether or not the sharded relay is enabled.
+ */
+@Component
+public class OutboxSharding {
+
+    private final int count;
+
+    public OutboxSharding(OutboxShardProperties props) {
+        this.count = props.count();
+    }
+
+    public int shardOf(UUID aggregateId) {
+        return Utils.toPositive(Utils.murmur2(aggregateId.toString().getBytes(StandardCharsets.UTF_8))) % count;
+    }
+
+    public int count() {
+        return count;
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+
+/**
+ * Thread builders for the relay's long-running workers: virtual threads when
+ * {@code spring.threads.virtual.enabled=true} (the same switch that moves Tomcat and {@code @Scheduled} onto
+ * virtual threads), daemon platform threads otherwise.
+ * <p>
+ * The workers spend their time in JDBC and in waits for Kafka acknowledgements; on a virtual thread those park
+ * instead of holding a carrier. The pgjdbc driver guards its I/O with {@code ReentrantLock}s, so they do not pin.
+ */
+final class RelayThreads {
+
+    private RelayThreads() {
+    }
+
+    static Thread.Builder named(Environment env, String name) {
+        return Threading.VIRTUAL.isActive(env)
+                ? Thread.ofVirtual().name(name)
+                : Thread.ofPlatform().name(name).daemon();
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.gateway.command.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection-pool-aware admission of API requests ({@code command.admission.*}).
+ *
+ * @param enabled             gate {@code /api/**} requests with {@link ConnectionPoolAdmissionFilter}; defaults to
+ *                            {@code spring.threads.virtual.enabled} (set in {@code application.yml})
+ * @param permits             concurrent requests; {@code 0} = Hikari {@code maximum-pool-size} minus
+ *                            {@code reservedConnections}
+ * @param reservedConnections pool connections kept free for the outbox relay, pruner and metrics sampler
+ * @param maxWait             how long a request may queue for a permit before it is answered with 503
+ */
+@ConfigurationProperties(prefix = "command.admission")
+public record AdmissionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0") int permits,
+        @DefaultValue("2") int reservedConnections,
+        @DefaultValue("2s") Duration maxWait
+) {
+    public AdmissionProperties {
+        if (permits < 0 || reservedConnections < 0) {
+            throw new IllegalArgumentException("command.admission requires permits >= 0 and reserved-connections >= 0");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.dimitryivaniuta.gateway.command.web;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits at most as many {@code /api/**} requests as the connection pool can serve at once.
+ * <p>
+ * Every command holds one pooled connection for its transaction (bulk chunks run one after another). With
+ * virtual threads ({@code spring.threads.virtual.enabled=true}) Tomcat no longer caps concurrency at its thread
+ * pool, so thousands of requests would otherwise queue inside Hikari, each holding memory and timing out after
+ * {@code connection-timeout}. This fair semaphore, sized to the pool, makes the excess wait cheaply (a parked
+ * virtual thread) for up to {@code max-wait} and then answers {@code 503} with {@code Retry-After}, so clients
+ * back off instead of stampeding the pool. It works the same on platform threads, where it rejects early rather
+ * than tying up request threads.
+ * <p>
+ * Metrics: {@code command.admission.wait}, {@code command.admission.rejected}, {@code command.admission.available}.
+ */
+@Slf4j
+@Component
+// on by default only with virtual threads, where request concurrency is no longer capped by the Tomcat pool
+@ConditionalOnExpression("${command.admission.enabled:${spring.threads.virtual.enabled:false}}")
+public class ConnectionPoolAdmissionFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Timer wait;
+    private final Counter rejected;
+
+    public ConnectionPoolAdmissionFilter(AdmissionProperties props, DataSource dataSource, MeterRegistry registry) {
+        final int size = props.permits() > 0 ? props.permits() : poolBased(props, dataSource);
+        this.permits = new Semaphore(size, true);
+        this.maxWaitNanos = props.maxWait().toNanos();
+        this.wait = Timer.builder("command.admission.wait")
+                .description("Time an API request queued for a connection-pool permit")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejected = Counter.builder("command.admission.rejected")
+                .description("API requests answered 503 after max-wait")
+                .register(registry);
+        Gauge.builder("command.admission.available", permits, Semaphore::availablePermits)
+                .description("Free admission permits")
+                .register(registry);
+        log.info("API admission: {} concurrent requests, max wait {}", size, props.maxWait());
+    }
+
+    private static int poolBased(AdmissionProperties props, DataSource dataSource) {
+        final int pool = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        return Math.max(1, pool - props.reservedConnections());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        final long t0 = System.nanoTime();
+        final boolean admitted;
+        try {
+            admitted = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        wait.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "connection pool saturated");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
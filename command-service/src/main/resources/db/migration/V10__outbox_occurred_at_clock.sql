@@ -0,0 +1,4 @@
+-- One clock for occurred_at: every insert path (JPA create, guarded update/delete, bulk) now leaves the column to
+-- this default instead of passing the JVM time or now(). clock_timestamp() is the time of the insert itself, so a
+-- delete that saw a committed create is always ordered after it; now() is the transaction start and could be older.
+alter table write.outbox alter column occurred_at set default clock_timestamp();
@@ -0,0 +1,16 @@
+-- Wake outbox relays as soon as an inserting transaction commits (NOTIFY is delivered on commit
+-- and de-duplicated per transaction, so a statement-level trigger costs one notification per tx).
+create or replace function write.notify_outbox_inserted() returns trigger
+    language plpgsql as
+$$
+begin
+    perform pg_notify('outbox_inserted', '');
+    return null;
+end;
+$$;
+
+drop trigger if exists trg_outbox_notify on write.outbox;
+create trigger trg_outbox_notify
+    after insert on write.outbox
+    for each statement
+execute function write.notify_outbox_inserted();
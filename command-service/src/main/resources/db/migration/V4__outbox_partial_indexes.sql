@@ -0,0 +1,10 @@
+-- Relay scan: "where published = false order by occurred_at, id limit n for update skip locked".
+-- The partial index only holds the (small) pending set, so the scan cost no longer grows with history.
+create index if not exists ix_outbox_unpublished
+    on write.outbox (occurred_at, id)
+    where published = false;
+
+-- Pruner scan: bounded chunks of published rows, oldest first.
+create index if not exists ix_outbox_published_occurred_at
+    on write.outbox (occurred_at)
+    where published = true;
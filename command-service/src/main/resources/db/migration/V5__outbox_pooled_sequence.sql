@@ -0,0 +1,4 @@
+-- Outbox ids move from IDENTITY to a pooled sequence: Hibernate reserves 50 ids per nextval and can JDBC-batch
+-- outbox inserts instead of round-tripping once per row. Column-default inserts (bulk path) keep using nextval
+-- and never collide with a pooled range.
+alter sequence write.outbox_id_seq increment by 50;
@@ -0,0 +1,6 @@
+-- Case-insensitive email uniqueness. Replaces the case-sensitive unique constraint, which neither enforced
+-- "Alice@x" vs "alice@x" nor served the lower(email) lookups behind existsByEmailIgnoreCase/findByEmailIgnoreCase.
+-- Fails if case-variant duplicates already exist; resolve them before migrating.
+create unique index if not exists ux_customers_email_lower on write.customers (lower(email));
+
+alter table write.customers drop constraint if exists customers_email_key;
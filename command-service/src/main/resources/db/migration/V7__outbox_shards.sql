@@ -0,0 +1,22 @@
+-- Outbox shards: every row carries the Kafka partition its key hashes to (murmur2, computed by the command service),
+-- and each shard is published by exactly one relay instance holding its lease.
+-- Rows written before this migration have shard = null and are drained by the owner of shard 0.
+alter table write.outbox add column if not exists shard int;
+
+create index if not exists ix_outbox_unpublished_shard
+    on write.outbox (shard, occurred_at, id)
+    where published = false;
+
+-- relay instances and their last heartbeat (membership for shard assignment)
+create table if not exists write.outbox_publishers (
+    instance_id  varchar(128) primary key,
+    heartbeat_at timestamptz not null
+);
+
+-- one row per shard; owner may publish while lease_until is in the future
+create table if not exists write.outbox_shard_leases (
+    shard       int primary key,
+    owner       varchar(128),
+    lease_until timestamptz not null default '-infinity',
+    epoch       bigint not null default 0
+);
@@ -0,0 +1,3 @@
+-- Who issued the command behind each outbox row; published as the envelope's actor.
+-- Rows written before this migration have actor = null and are published as 'command-service'.
+alter table write.outbox add column if not exists actor varchar(128);
@@ -0,0 +1,5 @@
+-- V6 replaced customers_email_key with this expression index. Only queries that compare lower(email) can use it
+-- (CustomerRepository.existsByLowerEmail/findByLowerEmail, EmailRegistry.owners); Spring Data's IgnoreCase
+-- derivation compares upper(email) and would scan. V6 is left untouched so its checksum stays valid.
+comment on index write.ux_customers_email_lower is
+    'Case-insensitive email uniqueness; serves lookups on lower(email) only';
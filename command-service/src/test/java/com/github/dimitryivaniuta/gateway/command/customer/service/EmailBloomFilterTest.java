@@ -0,0 +1,90 @@
+package com.github.dimitryivaniuta.gateway.command.customer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        final EmailBloomFilter filter = new EmailBloomFilter(20_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add(email(i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(filter.mightContain(email(i)), email(i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTargetAtExpectedInsertions() {
+        final EmailBloomFilter filter = new EmailBloomFilter(20_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add(email(i));
+        }
+        int falsePositives = 0;
+        final int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent-" + i + "@example.org")) falsePositives++;
+        }
+        final double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "false-positive rate " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        final EmailBloomFilter filter = new EmailBloomFilter(1_000, 0.01);
+        assertFalse(filter.mightContain("alice@example.com"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void sizesForTheRequestedRate() {
+        // about 9.6 bits per expected insertion at 1%, rounded up to whole 64-bit words
+        final long bytes = new EmailBloomFilter(1_000_000, 0.01).sizeInBytes();
+        assertTrue(bytes >= 1_198_000 && bytes <= 1_200_000, "size " + bytes);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws InterruptedException {
+        final EmailBloomFilter filter = new EmailBloomFilter(80_000, 0.01);
+        final int threads = 8;
+        final int perThread = 10_000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            final Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = base; i < base + perThread; i++) {
+                    filter.add(email(i));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+
+        for (int i = 0; i < threads * perThread; i++) {
+            assertTrue(filter.mightContain(email(i)), email(i));
+        }
+    }
+
+    private static String email(int i) {
+        return EmailRegistry.normalize("User" + i + "@Example.com");
+    }
+}
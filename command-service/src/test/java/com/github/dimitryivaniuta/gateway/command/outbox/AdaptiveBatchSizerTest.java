@@ -0,0 +1,61 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveBatchSizerTest {
+
+    private static final long TARGET = 100_000_000L; // 100 ms
+    private static final long FAST = TARGET / 10;
+    private static final long SLOW = TARGET * 2;
+
+    @Test
+    void startsAtMin() {
+        assertEquals(50, new AdaptiveBatchSizer(50, 2000, TARGET).current());
+    }
+
+    @Test
+    void doublesOnFullFastBatchesUpToMax() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 300, TARGET);
+
+        assertEquals(100, sizer.onBatch(50, FAST));
+        assertEquals(200, sizer.onBatch(100, FAST));
+        assertEquals(300, sizer.onBatch(200, FAST));
+        assertEquals(300, sizer.onBatch(300, FAST));
+        assertEquals(300, sizer.current());
+    }
+
+    @Test
+    void halvesOnSlowSendsDownToMin() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 2000, TARGET);
+        sizer.onBatch(50, FAST);
+        sizer.onBatch(100, FAST);
+        sizer.onBatch(200, FAST); // 400
+
+        assertEquals(200, sizer.onBatch(400, SLOW), "a slow send halves even a full batch");
+        assertEquals(100, sizer.onBatch(200, SLOW));
+        assertEquals(50, sizer.onBatch(100, SLOW));
+        assertEquals(50, sizer.onBatch(50, SLOW));
+    }
+
+    @Test
+    void decaysHalfwayTowardsTheDrainedBacklog() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(10, 2000, TARGET);
+        for (int size = 10; size < 640; size *= 2) {
+            sizer.onBatch(size, FAST);
+        }
+        assertEquals(640, sizer.current());
+
+        assertEquals(340, sizer.onBatch(40, FAST));
+        assertEquals(190, sizer.onBatch(40, FAST));
+        assertEquals(10, new AdaptiveBatchSizer(10, 2000, TARGET).onBatch(0, FAST), "never below min");
+    }
+
+    @Test
+    void sendAtExactlyTheTargetIsNotSlow() {
+        final AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(50, 2000, TARGET);
+
+        assertEquals(100, sizer.onBatch(50, TARGET));
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.dimitryivaniuta.gateway.command.outbox;
+
+import com.github.dimitryivaniuta.gateway.command.customer.domain.Outbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxCoalescerTest {
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+
+    private SimpleMeterRegistry registry;
+    private OutboxCoalescer coalescer;
+    private Map<Long, Long> coalescedFrom;
+    private long nextId;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new OutboxCoalescer(registry);
+        coalescedFrom = new HashMap<>();
+        nextId = 1;
+    }
+
+    @Test
+    void keepsOnlyTheNewestOfConsecutiveUpdatesAndMarksTheFirstReplacedVersion() {
+        final Outbox u1 = row(a, "CustomerUpdated", 1);
+        final Outbox u2 = row(a, "CustomerUpdated", 2);
+        final Outbox u3 = row(a, "CustomerUpdated", 3);
+
+        assertEquals(List.of(u3), coalescer.coalesce(List.of(u1, u2, u3), coalescedFrom));
+        assertEquals(Map.of(u3.getId(), 1L), coalescedFrom);
+        assertEquals(2.0, registry.get("outbox.relay.coalesced").counter().count());
+    }
+
+    @Test
+    void alwaysSendsCreatesAndDeletesInTheirOriginalPosition() {
+        final Outbox created = row(a, "CustomerCreated", 0);
+        final Outbox u1 = row(a, "CustomerUpdated", 1);
+        final Outbox u2 = row(a, "CustomerUpdated", 2);
+        final Outbox deleted = row(a, "CustomerDeleted", 3);
+
+        final List<Outbox> sent = coalescer.coalesce(List.of(created, u1, u2, deleted), coalescedFrom);
+
+        assertEquals(List.of(created, u2, deleted), sent);
+        assertEquals(Map.of(u2.getId(), 1L), coalescedFrom);
+    }
+
+    @Test
+    void aDeleteEndsTheRunSoUpdatesAroundItAreBothSent() {
+        final Outbox u1 = row(a, "CustomerUpdated", 1);
+        final Outbox deleted = row(a, "CustomerDeleted", 2);
+        final Outbox recreated = row(a, "CustomerCreated", 0);
+        final Outbox u2 = row(a, "CustomerUpdated", 1);
+
+        final List<Outbox> batch = List.of(u1, deleted, recreated, u2);
+        assertSame(batch, coalescer.coalesce(batch, coalescedFrom));
+        assertTrue(coalescedFrom.isEmpty());
+    }
+
+    @Test
+    void coalescesPerAggregateAndKeepsBatchOrderOfTheSurvivors() {
+        final Outbox a1 = row(a, "CustomerUpdated", 1);
+        final Outbox b1 = row(b, "CustomerUpdated", 4);
+        final Outbox a2 = row(a, "CustomerUpdated", 2);
+        final Outbox bDeleted = row(b, "CustomerDeleted", 5);
+        final Outbox a3 = row(a, "CustomerUpdated", 3);
+
+        assertEquals(List.of(b1, bDeleted, a3), coalescer.coalesce(List.of(a1, b1, a2, bDeleted, a3), coalescedFrom));
+        assertEquals(Map.of(a3.getId(), 1L), coalescedFrom);
+    }
+
+    @Test
+    void returnsTheBatchItselfWhenNothingIsSuperseded() {
+        final List<Outbox> single = List.of(row(a, "CustomerUpdated", 1));
+        assertSame(single, coalescer.coalesce(single, coalescedFrom));
+
+        final List<Outbox> distinct = List.of(row(a, "CustomerUpdated", 2), row(b, "CustomerUpdated", 1));
+        assertSame(distinct, coalescer.coalesce(distinct, coalescedFrom));
+        assertTrue(coalescedFrom.isEmpty());
+        assertEquals(0.0, registry.get("outbox.relay.coalesced").counter().count());
+    }
+
+    private Outbox row(UUID aggregate, String type, long version) {
+        return Outbox.builder()
+                .id(nextId++)
+                .aggregateType("Customer")
+                .aggregateId(aggregate)
+                .eventType(type)
+                .version(version)
+                .payload("{}")
+                .eventId(UUID.randomUUID())
+                .build();
+    }
+}
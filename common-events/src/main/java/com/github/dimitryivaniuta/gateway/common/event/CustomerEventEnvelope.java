@@ -1,11 +1,34 @@
 package com.github.dimitryivaniuta.gateway.common.event;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 
+/**
+ * @param coalescedFrom first version this event stands in for when the publisher coalesced the updates before it
+ *                      away (header {@link #COALESCED_FROM_HEADER}, not part of the encoded body); null otherwise
+ */
 @Builder
 public record CustomerEventEnvelope(
         String eventId, String aggregateId, String eventType,
         long version, long timestampUtcMillis, String actor,
-        Object payload // one of CustomerCreated/Updated/Deleted
+        Object payload, // one of CustomerCreated/Updated/Deleted
+        @JsonIgnore Long coalescedFrom
 ) {
+
+    /**
+     * Record header carrying {@link #coalescedFrom} as ASCII digits.
+     */
+    public static final String COALESCED_FROM_HEADER = "x-coalesced-from";
+
+    /**
+     * Whether the versions between {@code storedVersion} and this event were coalesced away upstream, i.e. the
+     * jump from {@code storedVersion} to {@link #version} is expected rather than a gap.
+     */
+    public boolean coalescedAfter(long storedVersion) {
+        return coalescedFrom != null && coalescedFrom <= storedVersion + 1;
+    }
+
+    public CustomerEventEnvelope withCoalescedFrom(Long from) {
+        return new CustomerEventEnvelope(eventId, aggregateId, eventType, version, timestampUtcMillis, actor, payload, from);
+    }
 }
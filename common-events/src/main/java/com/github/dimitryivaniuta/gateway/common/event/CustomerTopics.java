@@ -1,5 +1,10 @@
 package com.github.dimitryivaniuta.gateway.common.event;
 
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
 public final class CustomerTopics {
     public static final String EVENTS = "customers.events.v1";
     public static final String RETRY = "customers.events.v1.retry";
@@ -7,4 +12,11 @@ public final class CustomerTopics {
 
     private CustomerTopics() {
     }
-}
\ No newline at end of file
+
+    /**
+     * Partition the producer's default partitioner picks for an aggregate id key.
+     */
+    public static int partitionOf(UUID aggregateId, int partitionCount) {
+        return Utils.toPositive(Utils.murmur2(aggregateId.toString().getBytes(StandardCharsets.UTF_8))) % partitionCount;
+    }
+}
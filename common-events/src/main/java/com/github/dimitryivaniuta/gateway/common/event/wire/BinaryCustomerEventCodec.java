@@ -0,0 +1,344 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerDeleted;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerUpdated;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact, hand-rolled binary format (no schema registry).
+ * <pre>
+ * v1 layout (big-endian):
+ *   u8      magic (0xCE)
+ *   u8      format version (1)
+ *   u8      event type: 1=CustomerCreated 2=CustomerUpdated 3=CustomerDeleted 0=other (type string follows)
+ *   [str]   event type name, only when type = 0
+ *   16 B    eventId     (raw UUID msb|lsb)
+ *   16 B    aggregateId (raw UUID msb|lsb)
+ *   varint  version
+ *   i64     timestampUtcMillis
+ *   str     actor
+ *   payload
+ *     Created/Updated: str name, str email
+ *     Deleted:         u8 softDelete
+ *     other:           str payload as JSON
+ *
+ *   str = varint (byteLength + 1) followed by UTF-8 bytes; 0 encodes null
+ * </pre>
+ * Decoded payloads are the typed records ({@link CustomerCreated}, {@link CustomerUpdated},
+ * {@link CustomerDeleted}) rather than a JSON tree. Readers must reject unknown format versions;
+ * new versions get a new number instead of changing v1.
+ */
+public final class BinaryCustomerEventCodec implements CustomerEventCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.customer-event.v1+binary";
+
+    static final byte MAGIC = (byte) 0xCE;
+    static final byte FORMAT_V1 = 1;
+
+    private static final byte TYPE_OTHER = 0;
+    private static final byte TYPE_CREATED = 1;
+    private static final byte TYPE_UPDATED = 2;
+    private static final byte TYPE_DELETED = 3;
+
+    private final ObjectMapper om;
+
+    public BinaryCustomerEventCodec() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * @param om only used for payloads of unknown event types (carried as embedded JSON)
+     */
+    public BinaryCustomerEventCodec(ObjectMapper om) {
+        this.om = om;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encode(CustomerEventEnvelope e) {
+        final PooledBuffer out = PooledBuffer.acquire();
+        try {
+            return encode(e, new Writer(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    private byte[] encode(CustomerEventEnvelope e, Writer w) {
+        final byte type = typeCode(e.eventType());
+        w.u8(MAGIC);
+        w.u8(FORMAT_V1);
+        w.u8(type);
+        if (type == TYPE_OTHER) w.str(e.eventType());
+        w.uuid(UUID.fromString(e.eventId()));
+        w.uuid(UUID.fromString(e.aggregateId()));
+        w.varint(e.version());
+        w.i64(e.timestampUtcMillis());
+        w.str(e.actor());
+
+        switch (type) {
+            case TYPE_CREATED, TYPE_UPDATED -> {
+                w.str(field(e.payload(), "name"));
+                w.str(field(e.payload(), "email"));
+            }
+            case TYPE_DELETED -> w.u8((byte) (softDelete(e.payload()) ? 1 : 0));
+            default -> w.str(json(e.payload()));
+        }
+        return w.toByteArray();
+    }
+
+    /**
+     * Known payloads are pulled off a streaming parser (no tree); unknown ones are embedded verbatim.
+     */
+    @Override
+    public byte[] encodeRaw(RawCustomerEvent e) {
+        final PooledBuffer out = PooledBuffer.acquire();
+        try {
+            return encodeRaw(e, new Writer(out));
+        } finally {
+            out.release();
+        }
+    }
+
+    private static byte[] encodeRaw(RawCustomerEvent e, Writer w) {
+        final byte type = typeCode(e.eventType());
+        w.u8(MAGIC);
+        w.u8(FORMAT_V1);
+        w.u8(type);
+        if (type == TYPE_OTHER) w.str(e.eventType());
+        w.uuid(e.eventId());
+        w.uuid(e.aggregateId());
+        w.varint(e.version());
+        w.i64(e.timestampUtcMillis());
+        w.str(e.actor());
+
+        if (type == TYPE_OTHER) {
+            w.str(e.payloadJson());
+        } else {
+            final Object payload = JsonPayloads.parse(e.eventType(), e.payloadJson());
+            if (type == TYPE_DELETED) {
+                w.u8((byte) (softDelete(payload) ? 1 : 0));
+            } else {
+                w.str(field(payload, "name"));
+                w.str(field(payload, "email"));
+            }
+        }
+        return w.toByteArray();
+    }
+
+    @Override
+    public CustomerEventEnvelope decode(byte[] bytes) {
+        final Reader r = new Reader(bytes);
+        if (r.u8() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary customer event (bad magic)");
+        }
+        final byte format = r.u8();
+        if (format != FORMAT_V1) {
+            throw new IllegalArgumentException("Unsupported binary customer event format v" + format);
+        }
+        final byte type = r.u8();
+        final String eventType = switch (type) {
+            case TYPE_CREATED -> "CustomerCreated";
+            case TYPE_UPDATED -> "CustomerUpdated";
+            case TYPE_DELETED -> "CustomerDeleted";
+            default -> r.str();
+        };
+        final UUID eventId = r.uuid();
+        final UUID aggregateId = r.uuid();
+        final long version = r.varint();
+        final long ts = r.i64();
+        final String actor = r.str();
+
+        final Object payload = switch (type) {
+            case TYPE_CREATED -> new CustomerCreated(r.str(), r.str());
+            case TYPE_UPDATED -> new CustomerUpdated(r.str(), r.str());
+            case TYPE_DELETED -> new CustomerDeleted(r.u8() != 0);
+            default -> readJson(r.str());
+        };
+
+        return CustomerEventEnvelope.builder()
+                .eventId(eventId.toString())
+                .aggregateId(aggregateId.toString())
+                .eventType(eventType)
+                .version(version)
+                .timestampUtcMillis(ts)
+                .actor(actor)
+                .payload(payload)
+                .build();
+    }
+
+    /* =========================
+       Payload access (JsonNode from the publisher, Map from JSON decoding, or typed records)
+       ========================= */
+
+    private static byte typeCode(String eventType) {
+        if (eventType == null) return TYPE_OTHER;
+        return switch (eventType) {
+            case "CustomerCreated" -> TYPE_CREATED;
+            case "CustomerUpdated" -> TYPE_UPDATED;
+            case "CustomerDeleted" -> TYPE_DELETED;
+            default -> TYPE_OTHER;
+        };
+    }
+
+    private static String field(Object payload, String name) {
+        if (payload instanceof CustomerCreated c) return "name".equals(name) ? c.name() : c.email();
+        if (payload instanceof CustomerUpdated u) return "name".equals(name) ? u.name() : u.email();
+        if (payload instanceof JsonNode n) {
+            JsonNode v = n.get(name);
+            return v == null || v.isNull() ? null : v.asText();
+        }
+        if (payload instanceof Map<?, ?> m) {
+            Object v = m.get(name);
+            return v == null ? null : v.toString();
+        }
+        if (payload == null) return null;
+        throw new IllegalArgumentException("Unsupported payload type " + payload.getClass().getName());
+    }
+
+    private static boolean softDelete(Object payload) {
+        if (payload instanceof CustomerDeleted d) return d.softDelete();
+        if (payload instanceof JsonNode n) return n.path("softDelete").asBoolean(false);
+        if (payload instanceof Map<?, ?> m) return Boolean.TRUE.equals(m.get("softDelete"));
+        return false;
+    }
+
+    private String json(Object payload) {
+        if (payload == null) return null;
+        try {
+            return om.writeValueAsString(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object readJson(String json) {
+        if (json == null) return null;
+        try {
+            return om.readTree(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* =========================
+       Primitive I/O
+       ========================= */
+
+    /**
+     * Encodes into a {@link PooledBuffer}, so the only allocation per record is the result array.
+     */
+    private static final class Writer {
+        private final PooledBuffer out;
+
+        Writer(PooledBuffer out) {
+            this.out = out;
+        }
+
+        void u8(byte b) {
+            out.write(b);
+        }
+
+        void i64(long v) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((byte) (v >>> shift));
+            }
+        }
+
+        void uuid(UUID id) {
+            i64(id.getMostSignificantBits());
+            i64(id.getLeastSignificantBits());
+        }
+
+        /**
+         * Unsigned LEB128; versions are non-negative and almost always fit in 1-2 bytes.
+         */
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                out.write((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((byte) v);
+        }
+
+        void str(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1L);
+            out.write(utf8, 0, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte u8() {
+            check(1);
+            return buf[pos++];
+        }
+
+        long i64() {
+            check(8);
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (buf[pos++] & 0xFF);
+            }
+            return v;
+        }
+
+        UUID uuid() {
+            return new UUID(i64(), i64());
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String str() {
+            long len = varint();
+            if (len == 0) return null;
+            int n = Math.toIntExact(len - 1);
+            check(n);
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        private void check(int n) {
+            if (pos + n > buf.length) {
+                throw new IllegalArgumentException("Truncated binary customer event");
+            }
+        }
+    }
+}
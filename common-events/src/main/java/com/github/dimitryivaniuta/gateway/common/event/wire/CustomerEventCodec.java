@@ -0,0 +1,28 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+
+/**
+ * Encodes/decodes {@link CustomerEventEnvelope} for the Kafka value.
+ * <p>
+ * The codec that wrote a record is announced in the {@link #CONTENT_TYPE_HEADER} record header, so consumers
+ * can read every format they know and producers can switch formats without a flag day.
+ */
+public interface CustomerEventCodec {
+
+    /**
+     * Kafka record header carrying the {@link #contentType()} of the value.
+     */
+    String CONTENT_TYPE_HEADER = "content-type";
+
+    String contentType();
+
+    byte[] encode(CustomerEventEnvelope envelope);
+
+    /**
+     * Encodes an event whose payload is already serialized JSON, without materializing a JSON tree.
+     */
+    byte[] encodeRaw(RawCustomerEvent event);
+
+    CustomerEventEnvelope decode(byte[] bytes);
+}
@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import java.util.Locale;
+
+/**
+ * Lookup of the built-in codecs by config name ({@code json}, {@code binary}) or content type.
+ */
+public final class CustomerEventCodecs {
+
+    /**
+     * Producer config key selecting the outgoing format ({@code json} | {@code binary}).
+     */
+    public static final String CODEC_CONFIG = "customer.events.codec";
+
+    private static final JsonCustomerEventCodec JSON = new JsonCustomerEventCodec();
+    private static final BinaryCustomerEventCodec BINARY = new BinaryCustomerEventCodec();
+
+    private CustomerEventCodecs() {
+    }
+
+    public static CustomerEventCodec byName(String name) {
+        if (name == null || name.isBlank()) return JSON;
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "json" -> JSON;
+            case "binary" -> BINARY;
+            default -> throw new IllegalArgumentException("Unknown customer event codec '" + name + "'");
+        };
+    }
+
+    /**
+     * @param contentType header value; {@code null} means a legacy record written before the header existed (JSON)
+     */
+    public static CustomerEventCodec byContentType(String contentType) {
+        if (contentType == null || JsonCustomerEventCodec.CONTENT_TYPE.equals(contentType)) return JSON;
+        if (BinaryCustomerEventCodec.CONTENT_TYPE.equals(contentType)) return BINARY;
+        throw new IllegalArgumentException("Unsupported customer event content type '" + contentType + "'");
+    }
+}
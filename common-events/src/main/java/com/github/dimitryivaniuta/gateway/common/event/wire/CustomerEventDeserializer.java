@@ -0,0 +1,38 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka value deserializer for {@link CustomerEventEnvelope} that reads every built-in format, picking the
+ * codec from the {@value CustomerEventCodec#CONTENT_TYPE_HEADER} header (no header = legacy JSON). The
+ * {@value CustomerEventEnvelope#COALESCED_FROM_HEADER} header, if any, becomes
+ * {@link CustomerEventEnvelope#coalescedFrom()}.
+ * Roll out consumers with this deserializer first, then switch producers to {@code binary}.
+ */
+public class CustomerEventDeserializer implements Deserializer<CustomerEventEnvelope> {
+
+    @Override
+    public CustomerEventEnvelope deserialize(String topic, byte[] data) {
+        return data == null ? null : CustomerEventCodecs.byContentType(null).decode(data);
+    }
+
+    @Override
+    public CustomerEventEnvelope deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) return null;
+        Header h = headers == null ? null : headers.lastHeader(CustomerEventCodec.CONTENT_TYPE_HEADER);
+        String contentType = h == null ? null : new String(h.value(), StandardCharsets.US_ASCII);
+        CustomerEventEnvelope envelope = CustomerEventCodecs.byContentType(contentType).decode(data);
+        Header coalesced = headers == null ? null : headers.lastHeader(CustomerEventEnvelope.COALESCED_FROM_HEADER);
+        if (coalesced == null || coalesced.value() == null) return envelope;
+        try {
+            return envelope.withCoalescedFrom(Long.parseLong(new String(coalesced.value(), StandardCharsets.US_ASCII)));
+        } catch (NumberFormatException e) {
+            return envelope; // only a logging hint; treat the jump as a gap
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value serializer for {@link CustomerEventEnvelope} and {@link RawCustomerEvent}. The format is chosen
+ * with {@value CustomerEventCodecs#CODEC_CONFIG} (default {@code json}) and stamped into the
+ * {@value CustomerEventCodec#CONTENT_TYPE_HEADER} header of every record.
+ */
+public class CustomerEventSerializer implements Serializer<Object> {
+
+    private CustomerEventCodec codec = CustomerEventCodecs.byName("json");
+    private byte[] contentType = codec.contentType().getBytes(StandardCharsets.US_ASCII);
+
+    public CustomerEventSerializer() {
+    }
+
+    public CustomerEventSerializer(CustomerEventCodec codec) {
+        use(codec);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object name = configs.get(CustomerEventCodecs.CODEC_CONFIG);
+        if (name != null) {
+            use(CustomerEventCodecs.byName(name.toString()));
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) return null;
+        headers.remove(CustomerEventCodec.CONTENT_TYPE_HEADER);
+        headers.add(CustomerEventCodec.CONTENT_TYPE_HEADER, contentType);
+        return encode(data);
+    }
+
+    private byte[] encode(Object data) {
+        if (data == null) return null;
+        if (data instanceof RawCustomerEvent raw) return codec.encodeRaw(raw);
+        if (data instanceof CustomerEventEnvelope envelope) return codec.encode(envelope);
+        throw new IllegalArgumentException("Cannot serialize " + data.getClass().getName() + " as a customer event");
+    }
+
+    private void use(CustomerEventCodec codec) {
+        this.codec = codec;
+        this.contentType = codec.contentType().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The original wire format: plain JSON, byte-compatible with Spring's {@code JsonSerializer} without type
+ * headers. Records without a content-type header are assumed to be in this format.
+ * <p>
+ * Both directions stream: {@link #encodeRaw} writes the header fields and splices the stored payload text in
+ * as-is, and {@link #decode} pulls the envelope and the known payload fields off the parser into typed records.
+ */
+public final class JsonCustomerEventCodec implements CustomerEventCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private final ObjectMapper om;
+
+    public JsonCustomerEventCodec() {
+        this(new ObjectMapper());
+    }
+
+    public JsonCustomerEventCodec(ObjectMapper om) {
+        this.om = om;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] encode(CustomerEventEnvelope envelope) {
+        try {
+            return om.writeValueAsBytes(envelope);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] encodeRaw(RawCustomerEvent e) {
+        final PooledBuffer out = PooledBuffer.acquire();
+        try {
+            try (JsonGenerator g = om.getFactory().createGenerator(out)) {
+                g.writeStartObject();
+                g.writeStringField("eventId", e.eventId().toString());
+                g.writeStringField("aggregateId", e.aggregateId().toString());
+                g.writeStringField("eventType", e.eventType());
+                g.writeNumberField("version", e.version());
+                g.writeNumberField("timestampUtcMillis", e.timestampUtcMillis());
+                g.writeStringField("actor", e.actor());
+                g.writeFieldName("payload");
+                if (e.payloadJson() == null) {
+                    g.writeNull();
+                } else {
+                    g.writeRawValue(e.payloadJson()); // already valid JSON (jsonb), spliced verbatim
+                }
+                g.writeEndObject();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public CustomerEventEnvelope decode(byte[] bytes) {
+        try (JsonParser p = om.getFactory().createParser(bytes)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Customer event must be a JSON object");
+            }
+            final var b = CustomerEventEnvelope.builder();
+            String eventType = null;
+            Object payload = null;
+            JsonNode early = null; // payload that arrived before eventType
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = p.currentName();
+                p.nextToken();
+                switch (field) {
+                    case "eventId" -> b.eventId(p.getValueAsString());
+                    case "aggregateId" -> b.aggregateId(p.getValueAsString());
+                    case "eventType" -> {
+                        eventType = p.getValueAsString();
+                        b.eventType(eventType);
+                    }
+                    case "version" -> b.version(p.getValueAsLong());
+                    case "timestampUtcMillis" -> b.timestampUtcMillis(p.getValueAsLong());
+                    case "actor" -> b.actor(p.getValueAsString());
+                    case "payload" -> {
+                        if (eventType != null) {
+                            payload = JsonPayloads.read(p, eventType);
+                        } else {
+                            early = om.readTree(p);
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+            if (early != null) {
+                payload = JsonPayloads.fromTree(early, eventType);
+            }
+            return b.payload(payload).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerDeleted;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerUpdated;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Streaming readers for the known payloads: pull {@code name}/{@code email}/{@code softDelete} straight off a
+ * {@link JsonParser} into the typed records, skipping anything else, without building an {@code ObjectNode}.
+ * Unknown event types keep their payload as a {@link JsonNode}.
+ */
+public final class JsonPayloads {
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final JsonFactory FACTORY = OM.getFactory();
+
+    private JsonPayloads() {
+    }
+
+    /**
+     * Parses a serialized payload (e.g. the outbox {@code jsonb} text) for the given event type.
+     */
+    public static Object parse(String eventType, String json) {
+        if (json == null) return null;
+        try (JsonParser p = FACTORY.createParser(json)) {
+            p.nextToken();
+            return read(p, eventType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the payload value the parser is positioned on; leaves the parser on its last token.
+     */
+    static Object read(JsonParser p, String eventType) throws IOException {
+        if (p.currentToken() == JsonToken.VALUE_NULL) return null;
+        if (!isKnown(eventType)) {
+            return OM.readTree(p);
+        }
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Payload of " + eventType + " must be a JSON object");
+        }
+
+        String name = null;
+        String email = null;
+        boolean softDelete = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = p.currentName();
+            final JsonToken t = p.nextToken();
+            if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "name" -> name = t == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+                case "email" -> email = t == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+                case "softDelete" -> softDelete = p.getValueAsBoolean(false);
+                default -> {
+                    // ignore unknown scalar fields
+                }
+            }
+        }
+        return typed(eventType, name, email, softDelete);
+    }
+
+    /**
+     * Converts an already-parsed tree (payload seen before {@code eventType}) into the typed record.
+     */
+    static Object fromTree(JsonNode n, String eventType) {
+        if (n == null || n.isNull() || !isKnown(eventType)) return n;
+        return typed(eventType, text(n, "name"), text(n, "email"), n.path("softDelete").asBoolean(false));
+    }
+
+    private static Object typed(String eventType, String name, String email, boolean softDelete) {
+        return switch (eventType) {
+            case "CustomerCreated" -> new CustomerCreated(name, email);
+            case "CustomerUpdated" -> new CustomerUpdated(name, email);
+            default -> new CustomerDeleted(softDelete);
+        };
+    }
+
+    private static boolean isKnown(String eventType) {
+        return "CustomerCreated".equals(eventType)
+                || "CustomerUpdated".equals(eventType)
+                || "CustomerDeleted".equals(eventType);
+    }
+
+    private static String text(JsonNode n, String field) {
+        JsonNode v = n.get(field);
+        return v == null || v.isNull() ? null : v.asText();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reusable byte sink for encoders: the backing array survives between records, so the only allocation per encode
+ * is the exact-size result array Kafka needs.
+ * <p>
+ * Buffers come from one bounded pool shared by all threads rather than a {@code ThreadLocal}, which would hand
+ * every (short-lived) virtual thread a buffer of its own. When the pool is empty a new buffer is made; on
+ * {@link #release()} it is kept only if there is room, so the pool never holds more than {@link #POOL_SIZE}
+ * idle buffers. Arrays that grew past {@link #RETAIN_LIMIT} are dropped on release.
+ */
+final class PooledBuffer extends OutputStream {
+
+    private static final int INITIAL = 512;
+    private static final int RETAIN_LIMIT = 64 * 1024;
+    private static final int POOL_SIZE = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    private static final ArrayBlockingQueue<PooledBuffer> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private byte[] buf = new byte[INITIAL];
+    private int count;
+
+    private PooledBuffer() {
+    }
+
+    /**
+     * Returns an empty buffer for the caller's exclusive use until {@link #release()}.
+     */
+    static PooledBuffer acquire() {
+        final PooledBuffer b = POOL.poll();
+        return b == null ? new PooledBuffer() : b;
+    }
+
+    /**
+     * Hands the buffer back; it must not be used afterwards.
+     */
+    void release() {
+        if (buf.length > RETAIN_LIMIT) {
+            buf = new byte[INITIAL];
+        }
+        count = 0;
+        POOL.offer(this);
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensure(len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    @Override
+    public void close() {
+        // no-op: the buffer is reused, generators may close it freely
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    private void ensure(int n) {
+        if (count + n > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import lombok.Builder;
+
+import java.util.UUID;
+
+/**
+ * Envelope whose payload is still the serialized JSON text (e.g. straight from the outbox {@code jsonb} column).
+ * Codecs splice/stream it into the wire format without ever materializing a JSON tree.
+ */
+@Builder
+public record RawCustomerEvent(
+        UUID eventId, UUID aggregateId, String eventType,
+        long version, long timestampUtcMillis, String actor,
+        String payloadJson
+) {
+}
@@ -0,0 +1,146 @@
+package com.github.dimitryivaniuta.gateway.common.event.wire;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerDeleted;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerUpdated;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryCustomerEventCodecTest {
+
+    private final BinaryCustomerEventCodec codec = new BinaryCustomerEventCodec();
+
+    @Test
+    void roundTripsCreated() {
+        final CustomerEventEnvelope e = envelope("CustomerCreated", 1, new CustomerCreated("Ada", "ada@example.com"));
+
+        assertEquals(e, codec.decode(codec.encode(e)));
+    }
+
+    @Test
+    void roundTripsUpdatedWithNullFields() {
+        final CustomerEventEnvelope e = envelope("CustomerUpdated", 2, new CustomerUpdated(null, "ada@example.org"));
+
+        assertEquals(e, codec.decode(codec.encode(e)));
+    }
+
+    @Test
+    void roundTripsDeleted() {
+        for (boolean soft : new boolean[]{false, true}) {
+            final CustomerEventEnvelope e = envelope("CustomerDeleted", 3, new CustomerDeleted(soft));
+
+            assertEquals(e, codec.decode(codec.encode(e)));
+        }
+    }
+
+    /**
+     * Multi-byte varint versions, negative timestamps, non-ASCII and empty strings must all survive.
+     */
+    @Test
+    void roundTripsEdgeValues() {
+        final CustomerEventEnvelope e = CustomerEventEnvelope.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateId(UUID.randomUUID().toString())
+                .eventType("CustomerCreated")
+                .version(Long.MAX_VALUE)
+                .timestampUtcMillis(-1L)
+                .actor("\u017dofie \ud83d\ude00")
+                .payload(new CustomerCreated("", "\u00fcn\u00efc\u00f6d\u00e9@example.com"))
+                .build();
+
+        assertEquals(e, codec.decode(codec.encode(e)));
+    }
+
+    @Test
+    void unknownEventTypesCarryTheirPayloadAsJson() throws Exception {
+        final JsonNode payload = new ObjectMapper().readTree("{\"plan\":\"gold\",\"seats\":[1,2,3]}");
+        final CustomerEventEnvelope e = envelope("CustomerUpgraded", 4, payload);
+
+        final CustomerEventEnvelope decoded = codec.decode(codec.encode(e));
+
+        assertEquals("CustomerUpgraded", decoded.eventType());
+        assertInstanceOf(JsonNode.class, decoded.payload());
+        assertEquals(e, decoded);
+    }
+
+    /**
+     * The outbox path encodes straight from the {@code jsonb} text; it must produce the same bytes as encoding
+     * the typed payload, unknown JSON fields dropped.
+     */
+    @Test
+    void encodeRawMatchesEncode() {
+        final UUID eventId = UUID.randomUUID();
+        final UUID aggregateId = UUID.randomUUID();
+        final RawCustomerEvent raw = RawCustomerEvent.builder()
+                .eventId(eventId)
+                .aggregateId(aggregateId)
+                .eventType("CustomerUpdated")
+                .version(300)
+                .timestampUtcMillis(1_700_000_000_000L)
+                .actor("admin")
+                .payloadJson("{\"email\":\"b@example.com\",\"extra\":{\"x\":1},\"name\":\"Bo\"}")
+                .build();
+        final CustomerEventEnvelope typed = CustomerEventEnvelope.builder()
+                .eventId(eventId.toString())
+                .aggregateId(aggregateId.toString())
+                .eventType("CustomerUpdated")
+                .version(300)
+                .timestampUtcMillis(1_700_000_000_000L)
+                .actor("admin")
+                .payload(new CustomerUpdated("Bo", "b@example.com"))
+                .build();
+
+        final byte[] bytes = codec.encodeRaw(raw);
+
+        assertArrayEquals(codec.encode(typed), bytes);
+        assertEquals(typed, codec.decode(bytes));
+    }
+
+    @Test
+    void rejectsBadMagic() {
+        final byte[] bytes = codec.encode(envelope("CustomerDeleted", 1, new CustomerDeleted(false)));
+        bytes[0] = '{';
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(bytes));
+    }
+
+    @Test
+    void rejectsUnknownFormatVersions() {
+        final byte[] bytes = codec.encode(envelope("CustomerDeleted", 1, new CustomerDeleted(false)));
+        bytes[1] = BinaryCustomerEventCodec.FORMAT_V1 + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(bytes));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        final byte[] bytes = codec.encode(envelope("CustomerCreated", 1, new CustomerCreated("Ada", "ada@example.com")));
+
+        for (int length = 0; length < bytes.length; length++) {
+            final byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThrows(IllegalArgumentException.class, () -> codec.decode(truncated), "length " + length);
+        }
+    }
+
+    private static CustomerEventEnvelope envelope(String eventType, long version, Object payload) {
+        return CustomerEventEnvelope.builder()
+                .eventId(UUID.randomUUID().toString())
+                .aggregateId(UUID.randomUUID().toString())
+                .eventType(eventType)
+                .version(version)
+                .timestampUtcMillis(System.currentTimeMillis())
+                .actor("tester")
+                .payload(payload)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local stand-in for the production topology: a single-node KRaft broker and a real (bundled-binaries) Postgres
+ * in this JVM, plus command- and projection-service started from their boot jars as child processes, wired to
+ * them through the same environment variables the services read in production.
+ * <p>
+ * The services run out of process on purpose: they are separate Spring Boot applications scanning overlapping
+ * packages, and separate JVMs keep their thread pools, GC and connection pools from skewing each other.
+ * Their logs go to a temp directory that is printed on startup.
+ */
+final class EmbeddedStack implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final EmbeddedPostgres postgres;
+    private final List<Process> services = new ArrayList<>();
+    private final String commandUrl;
+    private final String projectionUrl;
+
+    private EmbeddedStack(EmbeddedKafkaKraftBroker kafka, EmbeddedPostgres postgres,
+                          String commandUrl, String projectionUrl) {
+        this.kafka = kafka;
+        this.postgres = postgres;
+        this.commandUrl = commandUrl;
+        this.projectionUrl = projectionUrl;
+    }
+
+    static EmbeddedStack start(LoadOptions options) throws Exception {
+        final EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, 12);
+        // transactional outbox publishing needs the transaction state log on a single broker
+        kafka.brokerProperties(Map.of(
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1",
+                "offsets.topic.replication.factor", "1"));
+        kafka.afterPropertiesSet();
+        final EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+
+        final int commandPort = freePort();
+        final int projectionPort = freePort();
+        final EmbeddedStack stack = new EmbeddedStack(kafka, postgres,
+                "http://localhost:" + commandPort, "http://localhost:" + projectionPort);
+        try {
+            final Path logs = Files.createTempDirectory("gateway-loadtest-");
+            System.out.println("Service logs: " + logs);
+            final Map<String, String> env = Map.of(
+                    "KAFKA_BOOTSTRAP_SERVERS", kafka.getBrokersAsString(),
+                    "SPRING_DATASOURCE_URL", postgres.getJdbcUrl("postgres", "postgres"),
+                    "SPRING_DATASOURCE_USERNAME", "postgres",
+                    "SPRING_DATASOURCE_PASSWORD", "postgres");
+            // command first: it creates the topics the projection subscribes to
+            stack.launch("command-service", options.commandJar(), commandPort, env, logs);
+            stack.awaitHealthy(stack.commandUrl);
+            stack.launch("projection-service", options.projectionJar(), projectionPort, env, logs);
+            stack.awaitHealthy(stack.projectionUrl);
+            return stack;
+        } catch (Exception e) {
+            stack.close();
+            throw e;
+        }
+    }
+
+    String bootstrapServers() {
+        return kafka.getBrokersAsString();
+    }
+
+    String commandUrl() {
+        return commandUrl;
+    }
+
+    String projectionUrl() {
+        return projectionUrl;
+    }
+
+    private void launch(String name, Path jar, int port, Map<String, String> env, Path logs) throws IOException {
+        final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        final ProcessBuilder pb = new ProcessBuilder(java, "-jar", jar.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(logs.resolve(name + ".log").toFile());
+        // inherits the caller's environment, so e.g. VIRTUAL_THREADS_ENABLED or PROJECTION_LISTENER_MODE apply
+        pb.environment().putAll(env);
+        pb.environment().put("SERVER_PORT", String.valueOf(port));
+        services.add(pb.start());
+    }
+
+    private void awaitHealthy(String baseUrl) throws Exception {
+        final HttpClient http = HttpClient.newHttpClient();
+        final HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2)).build();
+        final long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!services.getLast().isAlive()) {
+                throw new IllegalStateException(baseUrl + " exited during startup; see its log");
+            }
+            try {
+                if (http.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException notYetListening) {
+                // retry below
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(baseUrl + " not healthy after " + STARTUP_TIMEOUT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Process p : services.reversed()) {
+            p.destroy();
+            try {
+                if (!p.waitFor(30, java.util.concurrent.TimeUnit.SECONDS)) p.destroyForcibly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                p.destroyForcibly();
+            }
+        }
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            System.err.println("Could not stop embedded Postgres: " + e.getMessage());
+        }
+        kafka.destroy();
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command-line options ({@code --name=value}) of {@link LoadTest}.
+ *
+ * @param rate              target commands per second (open loop: sends are scheduled, never wait for replies)
+ * @param duration          measured phase
+ * @param warmup            unmeasured phase before it, at the same rate
+ * @param createWeight      share of creates in the mix
+ * @param updateWeight      share of updates (falls back to a create while no idle customer exists)
+ * @param deleteWeight      share of deletes (same fallback)
+ * @param maxInFlight       commands outstanding at once; a scheduled send beyond this is counted as dropped
+ * @param visibilityTimeout how long to wait for a write to show up in the read model
+ * @param embedded          start Kafka, Postgres and both services locally; otherwise use the URLs below
+ * @param commandUrl        command-service base URL (external mode)
+ * @param projectionUrl     projection-service base URL (external mode)
+ * @param bootstrapServers  Kafka bootstrap servers (external mode)
+ * @param commandJar        command-service boot jar (embedded mode, set by {@code :loadtest:run})
+ * @param projectionJar     projection-service boot jar (embedded mode, set by {@code :loadtest:run})
+ */
+record LoadOptions(
+        double rate,
+        Duration duration,
+        Duration warmup,
+        int createWeight,
+        int updateWeight,
+        int deleteWeight,
+        int maxInFlight,
+        Duration visibilityTimeout,
+        boolean embedded,
+        String commandUrl,
+        String projectionUrl,
+        String bootstrapServers,
+        Path commandJar,
+        Path projectionJar
+) {
+
+    static LoadOptions parse(String[] args) {
+        final Map<String, String> a = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + arg);
+            final int eq = arg.indexOf('=');
+            a.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        final String[] mix = a.getOrDefault("mix", "60:30:10").split(":");
+        if (mix.length != 3) throw new IllegalArgumentException("--mix must be create:update:delete, e.g. 60:30:10");
+
+        final LoadOptions o = new LoadOptions(
+                Double.parseDouble(a.getOrDefault("rate", "200")),
+                duration(a.getOrDefault("duration", "60s")),
+                duration(a.getOrDefault("warmup", "10s")),
+                Integer.parseInt(mix[0]),
+                Integer.parseInt(mix[1]),
+                Integer.parseInt(mix[2]),
+                Integer.parseInt(a.getOrDefault("max-in-flight", "5000")),
+                duration(a.getOrDefault("visibility-timeout", "10s")),
+                !Boolean.parseBoolean(a.getOrDefault("external", "false")),
+                a.getOrDefault("command-url", "http://localhost:8081"),
+                a.getOrDefault("projection-url", "http://localhost:8082"),
+                a.getOrDefault("bootstrap-servers", "localhost:9092"),
+                path(a.getOrDefault("command-jar", System.getProperty("loadtest.command-jar"))),
+                path(a.getOrDefault("projection-jar", System.getProperty("loadtest.projection-jar"))));
+
+        if (o.rate() <= 0 || o.maxInFlight() < 1) {
+            throw new IllegalArgumentException("--rate must be > 0 and --max-in-flight >= 1");
+        }
+        if (o.createWeight() < 0 || o.updateWeight() < 0 || o.deleteWeight() < 0
+                || o.createWeight() + o.updateWeight() + o.deleteWeight() == 0) {
+            throw new IllegalArgumentException("--mix weights must be >= 0 and not all 0");
+        }
+        if (o.embedded() && (o.commandJar() == null || o.projectionJar() == null)) {
+            throw new IllegalArgumentException("Embedded mode needs the service jars; run via ./gradlew :loadtest:run");
+        }
+        return o;
+    }
+
+    /**
+     * {@code 500ms}, {@code 30s}, {@code 2m}.
+     */
+    private static Duration duration(String s) {
+        if (s.endsWith("ms")) return Duration.ofMillis(Long.parseLong(s.substring(0, s.length() - 2)));
+        if (s.endsWith("s")) return Duration.ofSeconds(Long.parseLong(s.substring(0, s.length() - 1)));
+        if (s.endsWith("m")) return Duration.ofMinutes(Long.parseLong(s.substring(0, s.length() - 1)));
+        return Duration.parse(s);
+    }
+
+    private static Path path(String s) {
+        return s == null || s.isBlank() ? null : Path.of(s);
+    }
+}
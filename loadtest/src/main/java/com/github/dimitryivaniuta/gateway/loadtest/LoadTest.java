@@ -0,0 +1,37 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+/**
+ * End-to-end load test of command-service → outbox relay → Kafka → projection-service.
+ * <p>
+ * By default starts everything locally ({@link EmbeddedStack}); with {@code --external} it drives an already
+ * running stack, e.g. the docker-compose one. See the README for the options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final LoadOptions options = LoadOptions.parse(args);
+        if (options.embedded()) {
+            try (EmbeddedStack stack = EmbeddedStack.start(options)) {
+                run(options, stack.commandUrl(), stack.projectionUrl(), stack.bootstrapServers());
+            }
+        } else {
+            run(options, options.commandUrl(), options.projectionUrl(), options.bootstrapServers());
+        }
+    }
+
+    private static void run(LoadOptions options, String commandUrl, String projectionUrl, String bootstrapServers)
+            throws InterruptedException {
+        final StageStats stats = new StageStats();
+        try (PublishProbe probe = new PublishProbe(bootstrapServers, stats)) {
+            probe.start();
+            System.out.printf("Driving %s -> %s at %.0f cmd/s (warmup %ds, measured %ds)%n",
+                    commandUrl, projectionUrl, options.rate(), options.warmup().toSeconds(), options.duration().toSeconds());
+            final long measured = new OpenLoopDriver(options, commandUrl, projectionUrl, stats, probe).run();
+            Thread.sleep(1_000); // late publishes of the last commands
+            stats.print(System.out, options, measured, probe.unmatched());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop command generator: sends are scheduled at fixed intervals from a single dispatcher and never wait
+ * for earlier replies, so a slow system sees a growing backlog instead of a politely reduced rate. Every latency
+ * is taken from the scheduled time, not from when the request actually left (no coordinated omission).
+ * <p>
+ * Each command runs on its own virtual thread: the command call, the publish join and a read-your-writes GET
+ * on the projection ({@code ?min-version=}) that returns once the version (or the delete) is visible.
+ * Updates and deletes check a customer out of {@link #idle}, so no two in-flight commands race on one version.
+ */
+final class OpenLoopDriver {
+
+    private record Live(String id, long version) {
+    }
+
+    private enum Op {CREATE, UPDATE, DELETE}
+
+    private final LoadOptions options;
+    private final String commandUrl;
+    private final String projectionUrl;
+    private final StageStats stats;
+    private final PublishProbe probe;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http;
+    private final ExecutorService commands = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentLinkedDeque<Live> idle = new ConcurrentLinkedDeque<>();
+    private final Semaphore inFlight;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong emails = new AtomicLong();
+
+    OpenLoopDriver(LoadOptions options, String commandUrl, String projectionUrl, StageStats stats, PublishProbe probe) {
+        this.options = options;
+        this.commandUrl = commandUrl;
+        this.projectionUrl = projectionUrl;
+        this.stats = stats;
+        this.probe = probe;
+        this.inFlight = new Semaphore(options.maxInFlight());
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs warmup and the measured phase, then waits for outstanding commands to settle.
+     *
+     * @return length of the measured phase in nanoseconds
+     */
+    long run() throws InterruptedException {
+        final long periodNanos = Math.max(1, Math.round(1e9 / options.rate()));
+        final long start = System.nanoTime();
+        final long measureFrom = start + options.warmup().toNanos();
+        final long end = measureFrom + options.duration().toNanos();
+        stats.measureFromNanos = measureFrom;
+
+        final SplittableRandom random = new SplittableRandom();
+        final int total = options.createWeight() + options.updateWeight() + options.deleteWeight();
+        for (long i = 0; ; i++) {
+            final long intended = start + i * periodNanos;
+            if (intended - end >= 0) break;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                stats.count(stats.dropped, intended);
+                continue;
+            }
+            stats.count(stats.sent, intended);
+            final Op op = pick(random.nextInt(total));
+            commands.execute(() -> execute(op, intended));
+        }
+
+        commands.shutdown();
+        if (!commands.awaitTermination(options.visibilityTimeout().toSeconds() + 60, TimeUnit.SECONDS)) {
+            System.err.println("Some commands were still outstanding when the run ended");
+        }
+        return end - measureFrom;
+    }
+
+    private Op pick(int n) {
+        if (n < options.createWeight()) return Op.CREATE;
+        if (n < options.createWeight() + options.updateWeight()) return Op.UPDATE;
+        return Op.DELETE;
+    }
+
+    private void execute(Op op, long intended) {
+        final Live target = op == Op.CREATE ? null : idle.pollFirst();
+        Live written;
+        try {
+            // no idle customer yet (start of the run, delete-heavy mix): create one instead
+            written = target == null ? create(intended) : op == Op.UPDATE ? update(target, intended) : delete(target, intended);
+        } catch (IOException e) {
+            stats.error("command-io", intended);
+            written = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            inFlight.release();
+        }
+        if (written == null) return;
+
+        probe.commandCompleted(written.id(), written.version(), intended);
+        awaitVisible(written, intended);
+        if (op != Op.DELETE || target == null) idle.addLast(written);
+    }
+
+    private Live create(long intended) throws IOException, InterruptedException {
+        final String email = "lt-" + runId + "-" + emails.incrementAndGet() + "@load.test";
+        final HttpResponse<String> res = send(HttpRequest.newBuilder(URI.create(commandUrl + "/api/customers"))
+                .POST(body(Map.of("name", "Load Test", "email", email))), intended);
+        return res == null ? null : versioned(res);
+    }
+
+    private Live update(Live target, long intended) throws IOException, InterruptedException {
+        final HttpResponse<String> res = send(HttpRequest.newBuilder(URI.create(commandUrl + "/api/customers/" + target.id()))
+                .header("If-Match", "\"" + target.version() + "\"")
+                .method("PATCH", body(Map.of("name", "Load Test " + target.version()))), intended);
+        return res == null ? null : versioned(res);
+    }
+
+    private Live delete(Live target, long intended) throws IOException, InterruptedException {
+        final HttpResponse<String> res = send(HttpRequest.newBuilder(URI.create(commandUrl + "/api/customers/" + target.id()))
+                .header("If-Match", "\"" + target.version() + "\"")
+                .DELETE(), intended);
+        return res == null ? null : versioned(res);
+    }
+
+    /**
+     * @return the response on 200, {@code null} (counted by status) otherwise
+     */
+    private HttpResponse<String> send(HttpRequest.Builder request, long intended) throws IOException, InterruptedException {
+        final HttpResponse<String> res = http.send(request
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        stats.record(stats.command, intended, System.nanoTime());
+        if (res.statusCode() != 200) {
+            stats.error("command-" + res.statusCode(), intended);
+            return null;
+        }
+        return res;
+    }
+
+    /**
+     * The projection answers 404 for a customer deleted at (or after) the requested version.
+     */
+    private void awaitVisible(Live written, long intended) {
+        final HttpRequest get = HttpRequest.newBuilder(URI.create(projectionUrl + "/api/customers/" + written.id()
+                        + "?min-version=" + written.version() + "&wait-ms=" + options.visibilityTimeout().toMillis()))
+                .timeout(options.visibilityTimeout().plusSeconds(5))
+                .GET().build();
+        try {
+            final int status = http.send(get, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200 || status == 404) {
+                stats.record(stats.projection, intended, System.nanoTime());
+            } else if (status == 503) {
+                stats.count(stats.visibilityTimeouts, intended);
+            } else {
+                stats.error("projection-" + status, intended);
+            }
+        } catch (IOException e) {
+            stats.error("projection-io", intended);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Live versioned(HttpResponse<String> res) throws IOException {
+        final JsonNode node = json.readTree(res.body());
+        return new Live(node.get("id").asText(), node.get("version").asLong());
+    }
+
+    private HttpRequest.BodyPublisher body(Map<String, String> fields) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(fields));
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.common.event.wire.CustomerEventDeserializer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the events topic like a downstream consumer ({@code read_committed}, own group, starting at the
+ * end) and joins every event to the command that produced it by {@code aggregateId:version}.
+ * <p>
+ * Either side can arrive first (the relay may publish before the HTTP response is read), so the join keeps
+ * whichever timestamp came first and records the latency when the other one shows up.
+ */
+final class PublishProbe implements AutoCloseable {
+
+    private final KafkaConsumer<String, CustomerEventEnvelope> consumer;
+    private final StageStats stats;
+    private final Thread poller;
+    private final CountDownLatch assigned = new CountDownLatch(1);
+
+    /**
+     * {@code [intendedNanos, publishedNanos]}, 0 = not seen yet.
+     */
+    private final Map<String, long[]> marks = new ConcurrentHashMap<>();
+
+    PublishProbe(String bootstrapServers, StageStats stats) {
+        this.stats = stats;
+        this.consumer = new KafkaConsumer<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.GROUP_ID_CONFIG, "loadtest-probe-" + UUID.randomUUID(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest",
+                ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed",
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false"),
+                new StringDeserializer(), new CustomerEventDeserializer());
+        this.poller = Thread.ofPlatform().name("loadtest-probe").daemon().unstarted(this::poll);
+    }
+
+    /**
+     * Starts polling and returns once the end offsets are fixed, so no event of the run is missed.
+     */
+    void start() throws InterruptedException {
+        consumer.subscribe(List.of(CustomerTopics.EVENTS), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                partitions.forEach(consumer::position); // resolve "latest" now, before load starts
+                assigned.countDown();
+            }
+        });
+        poller.start();
+        if (!assigned.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Probe consumer got no partitions of " + CustomerTopics.EVENTS);
+        }
+    }
+
+    /**
+     * Called when the command service acknowledged {@code id} at {@code version}.
+     */
+    void commandCompleted(String id, long version, long intendedNanos) {
+        marks.compute(id + ":" + version, (k, m) -> {
+            if (m == null) return new long[]{intendedNanos, 0};
+            stats.record(stats.publish, intendedNanos, m[1]);
+            return null;
+        });
+    }
+
+    private void published(CustomerEventEnvelope e, long now) {
+        marks.compute(e.aggregateId() + ":" + e.version(), (k, m) -> {
+            if (m == null) return new long[]{0, now};
+            stats.record(stats.publish, m[0], now);
+            return null;
+        });
+    }
+
+    /**
+     * Events seen with no acknowledged command (warmup leftovers, failed HTTP calls, other writers).
+     */
+    long unmatched() {
+        return marks.values().stream().filter(m -> m[0] == 0).count();
+    }
+
+    private void poll() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                for (ConsumerRecord<String, CustomerEventEnvelope> rec : consumer.poll(Duration.ofMillis(200))) {
+                    if (rec.value() != null) published(rec.value(), System.nanoTime());
+                }
+            }
+        } catch (WakeupException closing) {
+            // close() below
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        consumer.wakeup();
+        poller.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
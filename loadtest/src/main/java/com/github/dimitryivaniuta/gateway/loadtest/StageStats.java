@@ -0,0 +1,83 @@
+package com.github.dimitryivaniuta.gateway.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms for the three stages of one command, all measured from the command's <em>intended</em>
+ * send time so queueing in the harness or the services is charged to the system, not hidden:
+ * <ul>
+ *   <li>{@code command}: HTTP response of the command service (row + outbox committed),</li>
+ *   <li>{@code publish}: event visible to a {@code read_committed} consumer of the events topic,</li>
+ *   <li>{@code projection}: version readable from the projection API.</li>
+ * </ul>
+ * Only commands whose intended send time falls after {@link #measureFromNanos} (the end of the warmup) count.
+ */
+final class StageStats {
+
+    private static final long MAX_TRACKABLE = TimeUnit.MINUTES.toNanos(5);
+
+    volatile long measureFromNanos = Long.MAX_VALUE;
+
+    final Histogram command = new ConcurrentHistogram(MAX_TRACKABLE, 3);
+    final Histogram publish = new ConcurrentHistogram(MAX_TRACKABLE, 3);
+    final Histogram projection = new ConcurrentHistogram(MAX_TRACKABLE, 3);
+
+    final LongAdder sent = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+    final LongAdder visibilityTimeouts = new LongAdder();
+    final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(Histogram h, long intendedNanos, long atNanos) {
+        if (measured(intendedNanos)) h.recordValue(Math.min(Math.max(atNanos - intendedNanos, 0), MAX_TRACKABLE));
+    }
+
+    void count(LongAdder counter, long intendedNanos) {
+        if (measured(intendedNanos)) counter.increment();
+    }
+
+    void error(String kind, long intendedNanos) {
+        if (measured(intendedNanos)) errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    private boolean measured(long intendedNanos) {
+        return intendedNanos - measureFromNanos >= 0;
+    }
+
+    void print(PrintStream out, LoadOptions o, long measuredNanos, long unmatchedPublishes) {
+        final double seconds = measuredNanos / 1e9;
+        out.printf("%nTarget %.0f cmd/s for %ds (mix %d:%d:%d), sent %d, dropped %d (max in flight %d)%n",
+                o.rate(), o.duration().toSeconds(), o.createWeight(), o.updateWeight(), o.deleteWeight(),
+                sent.sum(), dropped.sum(), o.maxInFlight());
+        out.printf("%-11s %9s %9s %9s %9s %9s %9s %9s%n",
+                "stage", "count", "per sec", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        row(out, "command", command, seconds);
+        row(out, "publish", publish, seconds);
+        row(out, "projection", projection, seconds);
+        out.printf("visibility timeouts %d, publishes without a matching command %d%n",
+                visibilityTimeouts.sum(), unmatchedPublishes);
+        if (!errors.isEmpty()) {
+            final Map<String, Long> sorted = new TreeMap<>();
+            errors.forEach((k, v) -> sorted.put(k, v.sum()));
+            out.println("errors " + sorted);
+        }
+    }
+
+    private static void row(PrintStream out, String stage, Histogram h, double seconds) {
+        out.printf("%-11s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", stage, h.getTotalCount(),
+                h.getTotalCount() / seconds,
+                ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue()));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
@@ -15,6 +16,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @SpringBootApplication(scanBasePackages = "com.github.dimitryivaniuta.gateway")
 @EnableJpaRepositories(basePackages = "com.github.dimitryivaniuta.gateway.projection.repo")
 @EntityScan(basePackages = "com.github.dimitryivaniuta.gateway.projection")
+@ConfigurationPropertiesScan
 public class ProjectionApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,106 @@
+package com.github.dimitryivaniuta.gateway.projection.api;
+
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerExportService;
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerExportService.Format;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+class CustomerExportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    /**
+     * Value to pass as {@code since} to the next export.
+     */
+    static final String WATERMARK_HEADER = "X-Export-Watermark";
+
+    private final CustomerExportService exports;
+
+    /**
+     * Streams the whole read model as NDJSON or CSV, or with {@code since} only the customers written since the
+     * export that returned that {@value #WATERMARK_HEADER}; 503 + Retry-After while
+     * {@code projection.export.max-concurrent} exports are already running.
+     * <p>
+     * The export slot is released when the body finishes, and also when the async request completes without the
+     * body having run to the end (timeout, error, client gone before it started); a flag makes it happen once.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long since,
+            HttpServletRequest request) {
+        final Format f = switch (format.toLowerCase()) {
+            case "ndjson" -> Format.NDJSON;
+            case "csv" -> Format.CSV;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        };
+        if (since != null && since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must be an earlier export's watermark");
+        }
+        final long watermark; // taken before the export's snapshot, see CustomerExportService#watermark
+        try {
+            watermark = exports.watermark();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Export watermark failed", e);
+        }
+        if (!exports.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        final AtomicBoolean held = new AtomicBoolean(true);
+        final Runnable release = () -> {
+            if (held.compareAndSet(true, false)) exports.release();
+        };
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ExportSlot.class, new ExportSlot(release));
+
+        final StreamingResponseBody body = out -> {
+            try {
+                exports.export(f, since, out);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Export failed", e);
+            } finally {
+                release.run();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(f == Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(WATERMARK_HEADER, Long.toString(watermark))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(f == Format.CSV ? "customers.csv" : "customers.ndjson")
+                        .build().toString())
+                .body(body);
+    }
+
+    /**
+     * Releases the export slot when the async request ends for any reason, including ones where the body never
+     * runs or never reaches its {@code finally}.
+     */
+    private record ExportSlot(Runnable release) implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release.run();
+        }
+    }
+}
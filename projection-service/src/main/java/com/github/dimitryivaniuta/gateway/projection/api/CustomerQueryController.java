@@ -0,0 +1,117 @@
+package com.github.dimitryivaniuta.gateway.projection.api;
+
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerQueryService;
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerReadModel;
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerSearchService;
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerSearchService.SearchPage;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerSearchRepository.Field;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+class CustomerQueryController {
+    private final CustomerQueryService service;
+
+    private final CustomerSearchService search;
+
+    record PageRes(List<CustomerReadModel> items, String nextAfter) {
+    }
+
+    /**
+     * With {@code min-version} (the {@code version} returned by the command service) the request is held
+     * asynchronously until the projection caught up, or answered 503 + Retry-After once {@code wait-ms} elapses.
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<CustomerReadModel>> get(
+            @PathVariable UUID id,
+            @RequestParam(name = "min-version", required = false) Long minVersion,
+            @RequestParam(name = "wait-ms", required = false) Long waitMs) {
+        if (minVersion == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.of(service.findById(id)));
+        }
+        return service.findByIdAtLeast(id, minVersion, waitMs == null ? null : Duration.ofMillis(waitMs))
+                .thenApply(ResponseEntity::of)
+                .exceptionally(CustomerQueryController::notYetConsistent);
+    }
+
+    private static ResponseEntity<CustomerReadModel> notYetConsistent(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof TimeoutException || cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        throw cause instanceof RuntimeException re ? re : new CompletionException(cause);
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<CustomerReadModel> getByEmail(@RequestParam String email) {
+        return ResponseEntity.of(service.findByEmail(email));
+    }
+
+    /**
+     * Keyset pagination on id: pass the previous page's {@code nextAfter} as {@code after}.
+     */
+    @GetMapping
+    public PageRes list(@RequestParam(required = false) UUID after,
+                        @RequestParam(defaultValue = "50") int limit) {
+        List<CustomerReadModel> items = service.page(after, limit);
+        String next = items.size() < Math.clamp(limit, 1, CustomerQueryService.MAX_PAGE_SIZE)
+                ? null
+                : items.getLast().id().toString();
+        return new PageRes(items, next);
+    }
+
+    /**
+     * Case-insensitive prefix search on {@code field} (name or email), ordered by that field then id;
+     * {@code after} is the previous page's opaque {@code nextAfter}.
+     */
+    @GetMapping(path = "/search", params = "prefix")
+    public PageRes searchByPrefix(@RequestParam String prefix,
+                                  @RequestParam(defaultValue = "name") String field,
+                                  @RequestParam(required = false) String after,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        final Field f = switch (field.toLowerCase()) {
+            case "name" -> Field.NAME;
+            case "email" -> Field.EMAIL;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "field must be name or email");
+        };
+        return searched(() -> search.byPrefix(f, prefix, after, limit));
+    }
+
+    /**
+     * Trigram similarity on name or email, best matches first.
+     */
+    @GetMapping(path = "/search", params = "fuzzy")
+    public PageRes searchFuzzy(@RequestParam String fuzzy,
+                               @RequestParam(required = false) String after,
+                               @RequestParam(defaultValue = "50") int limit) {
+        return searched(() -> search.fuzzy(fuzzy, after, limit));
+    }
+
+    private static PageRes searched(Supplier<SearchPage> query) {
+        try {
+            final SearchPage page = query.get();
+            return new PageRes(page.items(), page.nextAfter());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -2,19 +2,59 @@ package com.github.dimitryivaniuta.gateway.projection.kafka;
 
 import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
 import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.CommonErrorHandler;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.util.backoff.FixedBackOff;
 
+/**
+ * Error handling of the listener containers.
+ * <p>
+ * With {@code projection.retry.enabled=true} (default) a failed main-topic record is handed to
+ * {@link RetryRouter} at once (no blocking backoff), so its partition keeps flowing; see
+ * {@link CustomerRetryListener}. With {@code false} records are retried in place with exponential backoff and
+ * then sent to the DLT, stalling their partition meanwhile.
+ */
 @Configuration
 class CustomerErrorHandlingConfig {
     @Bean
-    CommonErrorHandler errorHandler(KafkaTemplate<Object, Object> template) {
+    CommonErrorHandler errorHandler(KafkaTemplate<Object, Object> template,
+                                    RetryPipelineProperties retry,
+                                    ObjectProvider<RetryRouter> router) {
+        if (retry.enabled()) {
+            return new DefaultErrorHandler(router.getObject()::recover, new FixedBackOff(0L, 0L));
+        }
+        return blockingWithDeadLetter(template);
+    }
+
+    /**
+     * Retry-topic consumer: its own failures are handled in the listener, so this only covers infrastructure
+     * errors (e.g. the DLT or the DB being unreachable), which are retried in place rather than re-routed.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "projection.retry", name = "enabled", havingValue = "true", matchIfMissing = true)
+    ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<Object, Object> template) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<Object, Object>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(false);
+        factory.setCommonErrorHandler(blockingWithDeadLetter(template));
+        return factory;
+    }
+
+    static DefaultErrorHandler blockingWithDeadLetter(KafkaTemplate<Object, Object> template) {
         var backoff = new ExponentialBackOffWithMaxRetries(5);
         backoff.setInitialInterval(500);
         backoff.setMultiplier(2.0);
@@ -25,4 +65,4 @@ class CustomerErrorHandlingConfig {
         handler.addNotRetryableExceptions(DeserializationException.class, IllegalArgumentException.class);
         return handler;
     }
-}
\ No newline at end of file
+}
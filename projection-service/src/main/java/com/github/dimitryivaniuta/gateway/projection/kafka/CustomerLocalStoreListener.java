@@ -0,0 +1,164 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewsChanged;
+import com.github.dimitryivaniuta.gateway.projection.store.LocalCustomerStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsOptions;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.IsolationLevel;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projects into {@link LocalCustomerStore} ({@code projection.listener.mode=local}).
+ * <p>
+ * A poll is split by partition and each partition's records are committed to the store in one atomic write
+ * together with the partition's next offset. On assignment the consumer is positioned from those store
+ * checkpoints, so records are applied exactly once even though the group offset is committed afterwards.
+ * Partitions the store never saw are normally loaded from a snapshot before the listener starts
+ * ({@code LocalStoreBootstrap}); without one they are replayed from the beginning of the topic.
+ * <p>
+ * A newly assigned partition is served by the store only once the consumer position reaches the partition's end
+ * offset as of the assignment; positions are reported after every poll and when the container is idle.
+ * <p>
+ * If a record fails, the records before it in its partition are still committed and the error handler receives
+ * the failing record; redelivered records below a checkpoint are skipped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "local")
+public class CustomerLocalStoreListener implements ConsumerSeekAware {
+
+    private final LocalCustomerStore store;
+
+    private final ApplicationEventPublisher events;
+
+    private final KafkaAdmin kafkaAdmin;
+
+    @KafkaListener(
+            id = "customer-local-store",
+            topics = CustomerTopics.EVENTS,
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency:1}",
+            containerFactory = "localStoreListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, CustomerEventEnvelope>> records, Acknowledgment ack,
+                        Consumer<?, ?> consumer) {
+        final Map<TopicPartition, List<ConsumerRecord<String, CustomerEventEnvelope>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+            byPartition.computeIfAbsent(new TopicPartition(rec.topic(), rec.partition()), k -> new ArrayList<>()).add(rec);
+        }
+        final List<CustomerViewsChanged.Change> changes = new ArrayList<>();
+        try {
+            byPartition.forEach((tp, recs) -> apply(tp, recs, changes));
+        } finally {
+            // committed partitions are visible even if a later one failed
+            if (!changes.isEmpty()) {
+                events.publishEvent(new CustomerViewsChanged(changes));
+            }
+        }
+        ack.acknowledge();
+        // everything this poll returned is committed now
+        for (TopicPartition tp : consumer.assignment()) {
+            if (store.isCatchingUp(tp)) {
+                store.positionReached(tp, consumer.position(tp));
+            }
+        }
+    }
+
+    private void apply(TopicPartition tp, List<ConsumerRecord<String, CustomerEventEnvelope>> records,
+                       List<CustomerViewsChanged.Change> changes) {
+        try (LocalCustomerStore.Batch batch = store.begin(tp)) {
+            for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+                if (batch.alreadyApplied(rec.offset())) continue;
+                if (rec.value() == null) {
+                    log.warn("Null envelope at topic={} partition={} offset={}", rec.topic(), rec.partition(), rec.offset());
+                    batch.skip(rec.offset());
+                    continue;
+                }
+                try {
+                    batch.apply(rec.value(), rec.offset());
+                } catch (RuntimeException ex) {
+                    changes.addAll(batch.commit()); // keep the prefix, hand the failing record to the error handler
+                    throw new BatchListenerFailedException("Local projection failed", ex, rec);
+                }
+            }
+            changes.addAll(batch.commit());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition tp : assignments.keySet()) {
+            final OptionalLong checkpoint = store.checkpoint(tp);
+            if (checkpoint.isPresent()) {
+                callback.seek(tp.topic(), tp.partition(), checkpoint.getAsLong());
+            } else {
+                log.warn("No local checkpoint for {} (snapshot bootstrap disabled, or the partition is new); "
+                        + "replaying it from the beginning of the topic, which lacks history older than its retention", tp);
+                callback.seekToBeginning(tp.topic(), tp.partition());
+            }
+        }
+        store.assigned(assignments.keySet(), partitionCount(), endOffsets(assignments.keySet()));
+    }
+
+    /**
+     * Idle means the last poll returned nothing, so the positions are at the end of what is committed.
+     */
+    @Override
+    public void onIdleContainer(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        assignments.forEach((tp, position) -> {
+            if (position != null) store.positionReached(tp, position);
+        });
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        store.revoked(partitions);
+    }
+
+    /**
+     * Read_committed end offsets (last stable offsets); on failure the partitions stay unserved until reassigned.
+     */
+    private Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+        final Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        partitions.forEach(tp -> request.put(tp, OffsetSpec.latest()));
+        final Map<TopicPartition, Long> out = new HashMap<>();
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            admin.listOffsets(request, new ListOffsetsOptions(IsolationLevel.READ_COMMITTED)).all()
+                    .get(30, TimeUnit.SECONDS)
+                    .forEach((tp, info) -> out.put(tp, info.offset()));
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            log.warn("Cannot read end offsets of {}; reads of these partitions stay on Postgres", partitions, e);
+        }
+        return out;
+    }
+
+    private int partitionCount() {
+        return kafkaAdmin.describeTopics(CustomerTopics.EVENTS).get(CustomerTopics.EVENTS).partitions().size();
+    }
+}
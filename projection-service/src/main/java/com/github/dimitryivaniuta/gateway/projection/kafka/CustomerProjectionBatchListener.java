@@ -0,0 +1,111 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerVersionIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch variant of {@link CustomerProjectionListener} ({@code projection.listener.mode=batch}).
+ * <p>
+ * Takes a whole poll, applies it with one set-based transaction and acknowledges once.
+ * If the set-based apply fails, the batch is replayed record by record so the error handler
+ * receives the exact failing index (earlier records are committed, later ones redelivered).
+ * Records of aggregates parked behind a retry-topic record are forwarded first, with one statement per poll.
+ * With {@link TransactionalOffsets} the poll's offsets commit with the set-based transaction (each replayed
+ * record with its own), so a large poll is never re-applied after a lost offset commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "batch")
+public class CustomerProjectionBatchListener implements ConsumerSeekAware {
+
+    private final MeteredProjector projector;
+
+    private final ObjectProvider<RetryRouter> retryRouter;
+
+    private final ObjectProvider<TransactionalOffsets> transactionalOffsets;
+
+    private final ObjectProvider<CustomerVersionIndex> versionIndex;
+
+    @KafkaListener(
+            topics = CustomerTopics.EVENTS,
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency:1}",
+            batch = "true"
+    )
+    public void onBatch(
+            List<ConsumerRecord<String, CustomerEventEnvelope>> polled,
+            Acknowledgment ack
+    ) {
+        final RetryRouter router = retryRouter.getIfAvailable();
+        final List<ConsumerRecord<String, CustomerEventEnvelope>> records =
+                router == null ? polled : router.forwardParked(polled);
+        final TransactionalOffsets offsets = transactionalOffsets.getIfAvailable();
+        final List<CustomerEventEnvelope> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+            if (rec.value() == null) {
+                log.warn("Null envelope at topic={} partition={} offset={}", rec.topic(), rec.partition(), rec.offset());
+                continue;
+            }
+            events.add(rec.value());
+        }
+
+        if (!events.isEmpty()) {
+            try {
+                int aggregates = projector.applyBatch(events, offsets == null ? null : offsets.of(records));
+                if (log.isDebugEnabled()) {
+                    log.debug("Applied batch of {} events ({} aggregates)", events.size(), aggregates);
+                }
+            } catch (Exception ex) {
+                log.warn("Set-based apply failed for batch of {} events; replaying per record", events.size(), ex);
+                replayPerRecord(records, offsets);
+            }
+        }
+        ack.acknowledge(); // one commit for the whole poll
+    }
+
+    private void replayPerRecord(List<ConsumerRecord<String, CustomerEventEnvelope>> records, TransactionalOffsets offsets) {
+        for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+            if (rec.value() == null) continue;
+            try {
+                projector.applyEvent(rec.value(), offsets == null ? null : offsets.of(rec));
+            } catch (Exception ex) {
+                log.error("Failed to apply event {} v{} for aggregate={} (part={} off={})",
+                        rec.value().eventType(), rec.value().version(), rec.value().aggregateId(),
+                        rec.partition(), rec.offset(), ex);
+                // by record, not index: forwarded records are not in this list
+                throw new BatchListenerFailedException("Projection failed", ex, rec);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        versionIndex.ifAvailable(index -> index.assigned(assignments.keySet()));
+        retryRouter.ifAvailable(router -> router.assigned(assignments.keySet()));
+        transactionalOffsets.ifAvailable(offsets -> offsets.seekToStored(assignments, callback));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        versionIndex.ifAvailable(index -> index.revoked(partitions));
+        retryRouter.ifAvailable(router -> router.revoked(partitions));
+    }
+}
@@ -1,25 +1,43 @@
 package com.github.dimitryivaniuta.gateway.projection.kafka;
 
 import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
-import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewRepository;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerVersionIndex;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Consumes customer domain events and projects them into the read model.
  * Manual ack: we only acknowledge AFTER the DB write succeeds.
+ * Active in the default {@code projection.listener.mode=record}; see {@link CustomerProjectionBatchListener}.
+ * Events of an aggregate that has a record in the retry topic are forwarded behind it ({@link RetryRouter}).
+ * With {@link TransactionalOffsets} the record's offset is stored in the applying transaction and the ack is
+ * advisory.
  */
 @Slf4j
 @Component
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "record", matchIfMissing = true)
 @RequiredArgsConstructor
-public class CustomerProjectionListener {
+public class CustomerProjectionListener implements ConsumerSeekAware {
+
+    private final MeteredProjector projector;
+
+    private final ObjectProvider<RetryRouter> retryRouter;
 
-    private final CustomerViewRepository repository;
+    private final ObjectProvider<TransactionalOffsets> transactionalOffsets;
+
+    private final ObjectProvider<CustomerVersionIndex> versionIndex;
 
     @KafkaListener(
             topics = CustomerTopics.EVENTS,
@@ -38,8 +56,15 @@ public class CustomerProjectionListener {
             return;
         }
 
+        final RetryRouter router = retryRouter.getIfAvailable();
+        if (router != null && router.forwardIfParked(rec)) {
+            ack.acknowledge();
+            return;
+        }
+
         try {
-            repository.applyEvent(e);   // idempotent upsert/remove by version
+            final TransactionalOffsets offsets = transactionalOffsets.getIfAvailable();
+            projector.applyEvent(e, offsets == null ? null : offsets.of(rec));   // idempotent upsert/remove by version
             ack.acknowledge();          // commit offset ONLY after success
             if (log.isDebugEnabled()) {
                 log.debug("Applied {} v{} for aggregate={} at part={} off={}",
@@ -52,4 +77,17 @@ public class CustomerProjectionListener {
             throw ex;
         }
     }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        versionIndex.ifAvailable(index -> index.assigned(assignments.keySet()));
+        retryRouter.ifAvailable(router -> router.assigned(assignments.keySet()));
+        transactionalOffsets.ifAvailable(offsets -> offsets.seekToStored(assignments, callback));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        versionIndex.ifAvailable(index -> index.revoked(partitions));
+        retryRouter.ifAvailable(router -> router.revoked(partitions));
+    }
 }
@@ -0,0 +1,151 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerVersionIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key-ordered parallel variant of {@link CustomerProjectionListener} ({@code projection.listener.mode=parallel}).
+ * <p>
+ * Records of a partition fan out to {@code projection.parallel.lanes} single-threaded lanes (virtual threads)
+ * chosen by a hash of the aggregate id, so one aggregate is always applied in offset order while different
+ * aggregates of the same (hot) partition are applied concurrently on separate DB connections.
+ * Each lane acknowledges its record when done; offsets are committed only up to the lowest fully-processed
+ * offset (see {@link ParallelProjectionConfig}).
+ * <p>
+ * Failures never reach the container error handler here (they happen off the consumer thread): a lane retries
+ * with exponential backoff and then publishes the record to the DLT and acknowledges it, like the
+ * {@code DefaultErrorHandler} does for the other modes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "parallel")
+public class CustomerProjectionParallelListener implements ConsumerSeekAware {
+
+    private final MeteredProjector projector;
+    private final ParallelProjectionProperties props;
+    private final DeadLetterPublishingRecoverer recoverer;
+    private final ObjectProvider<CustomerVersionIndex> versionIndex;
+    private final ExecutorService[] lanes;
+
+    public CustomerProjectionParallelListener(MeteredProjector projector,
+                                              ParallelProjectionProperties props,
+                                              KafkaTemplate<Object, Object> template,
+                                              ObjectProvider<CustomerVersionIndex> versionIndex) {
+        this.projector = projector;
+        this.props = props;
+        this.versionIndex = versionIndex;
+        this.recoverer = new DeadLetterPublishingRecoverer(template, (rec, ex) ->
+                new TopicPartition(CustomerTopics.DLT, rec.partition()));
+        this.lanes = new ExecutorService[props.lanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("projection-lane-" + i + "-", 0).factory());
+        }
+    }
+
+    @KafkaListener(
+            topics = CustomerTopics.EVENTS,
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency:1}",
+            containerFactory = "parallelListenerContainerFactory"
+    )
+    public void onEvent(ConsumerRecord<String, CustomerEventEnvelope> rec, Acknowledgment ack) {
+        if (rec.value() == null) {
+            log.warn("Null envelope at topic={} partition={} offset={}", rec.topic(), rec.partition(), rec.offset());
+            ack.acknowledge();
+            return;
+        }
+        lanes[laneOf(rec)].execute(() -> process(rec, ack));
+    }
+
+    private int laneOf(ConsumerRecord<String, CustomerEventEnvelope> rec) {
+        final String key = rec.key() != null ? rec.key() : rec.value().aggregateId();
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    private void process(ConsumerRecord<String, CustomerEventEnvelope> rec, Acknowledgment ack) {
+        final CustomerEventEnvelope e = rec.value();
+        long backoff = props.initialBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                projector.applyEvent(e);
+                ack.acknowledge();
+                return;
+            } catch (IllegalArgumentException ex) {
+                // not retryable (same classification as CustomerErrorHandlingConfig)
+                recover(rec, ack, ex);
+                return;
+            } catch (Exception ex) {
+                if (attempt >= props.maxAttempts()) {
+                    recover(rec, ack, ex);
+                    return;
+                }
+                log.warn("Apply of {} v{} for aggregate={} failed (attempt {}/{}); retrying in {} ms",
+                        e.eventType(), e.version(), e.aggregateId(), attempt, props.maxAttempts(), backoff);
+                if (!sleep(backoff)) return; // shutting down: leave unacknowledged, it will be redelivered
+                backoff = Math.min(backoff * 2, props.maxBackoff().toMillis());
+            }
+        }
+    }
+
+    private void recover(ConsumerRecord<String, CustomerEventEnvelope> rec, Acknowledgment ack, Exception ex) {
+        log.error("Failed to apply event {} v{} for aggregate={} (part={} off={}); sending to DLT",
+                rec.value().eventType(), rec.value().version(), rec.value().aggregateId(),
+                rec.partition(), rec.offset(), ex);
+        recoverer.accept(rec, ex);
+        ack.acknowledge();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        versionIndex.ifAvailable(index -> index.assigned(assignments.keySet()));
+    }
+
+    /**
+     * Lanes may still be applying records of these partitions; their commits simply no longer reach the index.
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        versionIndex.ifAvailable(index -> index.revoked(partitions));
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
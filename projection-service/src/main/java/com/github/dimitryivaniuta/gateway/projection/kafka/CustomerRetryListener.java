@@ -0,0 +1,156 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumes {@code customers.events.v1.retry} ({@code projection.retry.enabled=true}, own consumer group
+ * {@code <group>-retry}).
+ * <p>
+ * Records of a retry partition are applied strictly in offset order, which keeps the per-aggregate order set up
+ * by {@link RetryRouter}. A record whose {@link RetryRouter#NOT_BEFORE_HEADER} lies in the future is not waited
+ * for on the consumer thread: the listener seeks back to it, pauses only that partition and resumes it when the
+ * record is due, so other retry partitions (and the main topic, which has its own consumer) keep flowing.
+ * A failed attempt is re-scheduled in place with the next backoff; after {@code max-attempts} the record goes
+ * to the DLT. Either way the aggregate is released from {@code read.retry_parking} once its newest parked
+ * version is done.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "projection.retry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerRetryListener implements ConsumerSeekAware {
+
+    static final String LISTENER_ID = "customer-retry";
+
+    /**
+     * In-place schedule of the head record of a paused partition (attempt counts beyond the record's header).
+     */
+    private record Pending(long offset, int attempt, long dueAt) {
+    }
+
+    private final MeteredProjector projector;
+    private final RetryRouter router;
+    private final RetryPipelineProperties props;
+    private final KafkaListenerEndpointRegistry registry;
+    private final ScheduledExecutorService resumer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("projection-retry-resume").daemon().factory());
+    private final Meter.MeterProvider<Counter> outcomes;
+
+    // per partition; a partition is only ever touched by the consumer thread it is assigned to
+    private final Map<TopicPartition, Pending> pending = new ConcurrentHashMap<>();
+
+    public CustomerRetryListener(MeteredProjector projector,
+                                 RetryRouter router,
+                                 RetryPipelineProperties props,
+                                 KafkaListenerEndpointRegistry registry,
+                                 MeterRegistry meters) {
+        this.projector = projector;
+        this.router = router;
+        this.props = props;
+        this.registry = registry;
+        this.outcomes = Counter.builder("projection.retry.attempts")
+                .description("Attempts on the retry topic")
+                .withRegistry(meters);
+    }
+
+    @KafkaListener(
+            id = LISTENER_ID,
+            topics = CustomerTopics.RETRY,
+            groupId = "${spring.kafka.consumer.group-id}-retry",
+            concurrency = "${projection.retry.concurrency:1}",
+            containerFactory = "retryListenerContainerFactory"
+    )
+    public void onRetry(ConsumerRecord<String, CustomerEventEnvelope> rec, Acknowledgment ack, Consumer<?, ?> consumer) {
+        final TopicPartition tp = new TopicPartition(rec.topic(), rec.partition());
+        final Pending head = pending.get(tp);
+        if (head != null && rec.offset() > head.offset()) {
+            return; // rest of a poll behind a delayed head; re-fetched after the seek
+        }
+        final CustomerEventEnvelope e = rec.value();
+        if (e == null) {
+            ack.acknowledge();
+            return;
+        }
+
+        final boolean scheduled = head != null && head.offset() == rec.offset();
+        final int attempt = scheduled ? head.attempt() : RetryRouter.attempt(rec);
+        final long dueAt = scheduled ? head.dueAt() : RetryRouter.notBefore(rec);
+        if (dueAt > System.currentTimeMillis()) {
+            delay(tp, new Pending(rec.offset(), attempt, dueAt), consumer);
+            return;
+        }
+
+        try {
+            projector.applyEvent(e);
+            outcomes.withTags("outcome", "applied").increment();
+        } catch (Exception ex) {
+            final int next = attempt + 1;
+            if (next > props.maxAttempts() || !RetryRouter.isRetryable(ex)) {
+                outcomes.withTags("outcome", "dead_lettered").increment();
+                router.deadLetter(rec, ex);
+            } else {
+                outcomes.withTags("outcome", "failed").increment();
+                final long backoff = props.delayMillis(next);
+                log.warn("Retry of {} v{} for aggregate={} failed (attempt {}/{}); next attempt in {} ms",
+                        e.eventType(), e.version(), e.aggregateId(), Math.max(attempt, 1), props.maxAttempts(),
+                        backoff, ex);
+                delay(tp, new Pending(rec.offset(), next, System.currentTimeMillis() + backoff), consumer);
+                return;
+            }
+        }
+        pending.remove(tp);
+        router.release(e);
+        ack.acknowledge();
+    }
+
+    /**
+     * Re-positions the partition on {@code p.offset()}, pauses it and schedules the resume.
+     */
+    private void delay(TopicPartition tp, Pending p, Consumer<?, ?> consumer) {
+        pending.put(tp, p);
+        consumer.seek(tp, p.offset());
+        final MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) return;
+        container.pausePartition(tp);
+        final long wait = Math.max(0, p.dueAt() - System.currentTimeMillis());
+        resumer.schedule(() -> container.resumePartition(tp), wait, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // a re-assigned partition starts from its committed offset: forget stale in-place schedules
+        assignments.keySet().forEach(pending::remove);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(pending::remove);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resumer.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Postgres sink of the local-store mode ({@code projection.local.postgres-sink=true}): keeps
+ * {@code read.customers_view} up to date from its own consumer group ({@code <group>-sink}), so a slow or
+ * unavailable database lags behind without holding up the local store.
+ * <p>
+ * Same set-based apply as {@link CustomerProjectionBatchListener}, replayed per record to locate a failure.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${projection.listener.mode:record}' == 'local' and ${projection.local.postgres-sink:true}")
+public class CustomerViewSinkListener {
+
+    private final MeteredProjector projector;
+
+    @KafkaListener(
+            id = "customer-view-sink",
+            topics = CustomerTopics.EVENTS,
+            groupId = "${spring.kafka.consumer.group-id}-sink",
+            concurrency = "${spring.kafka.listener.concurrency:1}",
+            containerFactory = "localStoreListenerContainerFactory"
+    )
+    public void onBatch(List<ConsumerRecord<String, CustomerEventEnvelope>> records, Acknowledgment ack) {
+        final List<CustomerEventEnvelope> events = records.stream().map(ConsumerRecord::value).filter(Objects::nonNull).toList();
+        if (!events.isEmpty()) {
+            try {
+                projector.applyBatch(events);
+            } catch (Exception ex) {
+                log.warn("Set-based sink apply failed for batch of {} events; replaying per record", events.size(), ex);
+                for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+                    if (rec.value() == null) continue;
+                    try {
+                        projector.applyEvent(rec.value());
+                    } catch (Exception recordEx) {
+                        throw new BatchListenerFailedException("Postgres sink failed", recordEx, rec);
+                    }
+                }
+            }
+        }
+        ack.acknowledge();
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * Container factory for {@link CustomerLocalStoreListener} and {@link CustomerViewSinkListener}.
+ * <p>
+ * Batch listeners with the blocking backoff + DLT handler: the retry topic parks aggregates in Postgres, which
+ * does not fit a store the sink may not even write to, and a local apply only fails on a poison record.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "local")
+class LocalStoreListenerConfig {
+
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<Object, Object> localStoreListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<Object, Object> template) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<Object, Object>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(CustomerErrorHandlingConfig.blockingWithDeadLetter(template));
+        // CustomerLocalStoreListener#onIdleContainer marks quiet partitions as caught up
+        factory.getContainerProperties().setIdleEventInterval(5_000L);
+        return factory;
+    }
+}
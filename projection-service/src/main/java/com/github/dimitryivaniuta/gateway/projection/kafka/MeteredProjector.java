@@ -0,0 +1,123 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.projection.repo.ApplyOutcome;
+import com.github.dimitryivaniuta.gateway.projection.repo.BatchOutcome;
+import com.github.dimitryivaniuta.gateway.projection.repo.ConsumedOffsets;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CustomerViewRepository} front used by all listener modes; times every apply including the commit.
+ * <p>
+ * Metrics:
+ * <ul>
+ *   <li>{@code projection.apply} - one event (record/parallel modes and batch replay), tags {@code type},
+ *   {@code outcome} = applied | gap | stale | unknown | error</li>
+ *   <li>{@code projection.apply.batch} / {@code projection.apply.batch.size} - one set-based poll (batch mode)</li>
+ *   <li>{@code projection.e2e.latency} - envelope {@code timestampUtcMillis} (outbox {@code occurred_at}, i.e. the
+ *   command commit) to projection commit, tag {@code type}; recorded only for events that changed the view, in
+ *   batch mode too (the statements return the rows they wrote).
+ *   Includes clock skew between the two hosts.</li>
+ * </ul>
+ * Per-partition consumer lag is not computed here: with actuator on the classpath Spring Boot binds the Kafka
+ * client metrics, which already export {@code kafka.consumer.fetch.manager.records.lag{topic,partition}}.
+ */
+@Component
+public class MeteredProjector {
+
+    private static final Set<String> KNOWN_TYPES = Set.of("CustomerCreated", "CustomerUpdated", "CustomerDeleted");
+
+    private final CustomerViewRepository repository;
+    private final Meter.MeterProvider<Timer> applyTimer;
+    private final Meter.MeterProvider<Timer> endToEnd;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+
+    public MeteredProjector(CustomerViewRepository repository, MeterRegistry registry) {
+        this.repository = repository;
+        this.applyTimer = Timer.builder("projection.apply")
+                .description("Projection of one event, including commit")
+                .publishPercentileHistogram()
+                .withRegistry(registry);
+        this.endToEnd = Timer.builder("projection.e2e.latency")
+                .description("Command commit to projection commit")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .withRegistry(registry);
+        this.batchTimer = Timer.builder("projection.apply.batch")
+                .description("Set-based projection of one poll, including commit")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("projection.apply.batch.size")
+                .description("Events per set-based batch")
+                .register(registry);
+    }
+
+    public ApplyOutcome applyEvent(CustomerEventEnvelope e) {
+        return applyEvent(e, null);
+    }
+
+    /**
+     * @param consumed position to store with the change ({@link TransactionalOffsets}), null for none
+     */
+    public ApplyOutcome applyEvent(CustomerEventEnvelope e, ConsumedOffsets consumed) {
+        final long t0 = System.nanoTime();
+        String outcome = "error";
+        try {
+            final ApplyOutcome result = consumed == null ? repository.applyEvent(e) : repository.applyEvent(e, consumed);
+            outcome = result.name().toLowerCase();
+            if (result.changed()) {
+                recordEndToEnd(e, System.currentTimeMillis());
+            }
+            return result;
+        } finally {
+            applyTimer.withTags("type", typeTag(e), "outcome", outcome)
+                    .record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * End-to-end latency is recorded only for the events that changed the view ({@link BatchOutcome#applied}), as in
+     * record mode, so replays and redeliveries do not fill the histogram with old samples.
+     *
+     * @return number of distinct aggregates in the batch
+     */
+    public int applyBatch(List<CustomerEventEnvelope> events) {
+        return applyBatch(events, null);
+    }
+
+    public int applyBatch(List<CustomerEventEnvelope> events, ConsumedOffsets consumed) {
+        final long t0 = System.nanoTime();
+        final BatchOutcome outcome =
+                consumed == null ? repository.applyBatch(events) : repository.applyBatch(events, consumed);
+        batchTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        batchSize.record(events.size());
+
+        final long now = System.currentTimeMillis();
+        for (CustomerEventEnvelope e : outcome.applied()) {
+            recordEndToEnd(e, now);
+        }
+        return outcome.aggregates();
+    }
+
+    private void recordEndToEnd(CustomerEventEnvelope e, long nowMillis) {
+        if (e.timestampUtcMillis() <= 0) return;
+        endToEnd.withTags("type", typeTag(e)).record(Duration.ofMillis(Math.max(0, nowMillis - e.timestampUtcMillis())));
+    }
+
+    private static String typeTag(CustomerEventEnvelope e) {
+        // bounded tag cardinality: unknown types from a misbehaving producer collapse into one series
+        return KNOWN_TYPES.contains(e.eventType()) ? e.eventType() : "other";
+    }
+}
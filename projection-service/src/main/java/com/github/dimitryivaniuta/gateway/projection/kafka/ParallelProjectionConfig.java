@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+/**
+ * Container factory for {@link CustomerProjectionParallelListener}.
+ * <p>
+ * {@code asyncAcks} lets lanes acknowledge out of order: the container commits only the contiguous prefix of
+ * acknowledged offsets per partition (the lowest fully-processed offset) and pauses the consumer until the
+ * previous poll is fully acknowledged, which also bounds the work in flight to one poll per partition.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "parallel")
+class ParallelProjectionConfig {
+
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<Object, Object> parallelListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<Object, Object>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+}
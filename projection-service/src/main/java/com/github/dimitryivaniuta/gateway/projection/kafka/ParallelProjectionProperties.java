@@ -0,0 +1,29 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@code projection.listener.mode=parallel} ({@code projection.parallel.*}).
+ *
+ * @param lanes          ordered worker lanes shared by all partitions of this instance; keep at or below the
+ *                       Hikari pool size, each busy lane holds one connection
+ * @param maxAttempts    attempts per record (first try included) before it is sent to the DLT
+ * @param initialBackoff delay before the first retry, doubled per attempt up to {@code maxBackoff}
+ * @param maxBackoff     retry delay cap
+ */
+@ConfigurationProperties(prefix = "projection.parallel")
+public record ParallelProjectionProperties(
+        @DefaultValue("8") int lanes,
+        @DefaultValue("6") int maxAttempts,
+        @DefaultValue("500ms") Duration initialBackoff,
+        @DefaultValue("10s") Duration maxBackoff
+) {
+    public ParallelProjectionProperties {
+        if (lanes < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("projection.parallel requires lanes >= 1 and max-attempts >= 1");
+        }
+    }
+}
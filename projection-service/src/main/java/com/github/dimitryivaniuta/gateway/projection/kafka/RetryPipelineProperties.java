@@ -0,0 +1,42 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking retry pipeline for the record and batch listener modes ({@code projection.retry.*}).
+ *
+ * @param enabled      route failed records to {@code customers.events.v1.retry} instead of retrying them in place
+ *                     on the main topic; {@code false} restores the blocking exponential backoff
+ * @param maxAttempts  attempts on the retry topic before a record is sent to the DLT
+ * @param initialDelay delay before the first attempt on the retry topic
+ * @param multiplier   delay factor per further attempt
+ * @param maxDelay     delay cap
+ * @param concurrency  consumer threads of the retry listener
+ */
+@ConfigurationProperties(prefix = "projection.retry")
+public record RetryPipelineProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5") int maxAttempts,
+        @DefaultValue("1s") Duration initialDelay,
+        @DefaultValue("2.0") double multiplier,
+        @DefaultValue("5m") Duration maxDelay,
+        @DefaultValue("1") int concurrency
+) {
+    public RetryPipelineProperties {
+        if (maxAttempts < 1 || multiplier < 1.0 || concurrency < 1) {
+            throw new IllegalArgumentException(
+                    "projection.retry requires max-attempts >= 1, multiplier >= 1 and concurrency >= 1");
+        }
+    }
+
+    /**
+     * @param attempt 1-based attempt on the retry topic
+     */
+    public long delayMillis(int attempt) {
+        final double delay = initialDelay.toMillis() * Math.pow(multiplier, Math.max(0, attempt - 1));
+        return (long) Math.min(delay, maxDelay.toMillis());
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.repo.RetryParkingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves records from the main topic to {@code customers.events.v1.retry} ({@code projection.retry.enabled=true}).
+ * <p>
+ * A record that fails on the main topic is sent once, with {@link #ATTEMPT_HEADER} = 1 and
+ * {@link #NOT_BEFORE_HEADER} = now + {@code initial-delay}, and its aggregate is parked in
+ * {@code read.retry_parking}. Until {@link CustomerRetryListener} has worked through the aggregate's retry
+ * records, its newer main-topic events are forwarded behind them (attempt 0, no delay) instead of being applied.
+ * The retry topic has the main topic's partition count and is keyed the same way, so one aggregate's records
+ * stay in one retry partition in their original order.
+ * <p>
+ * Parking and sending happen in one DB transaction that commits only after the broker acknowledged the send:
+ * a crash in between re-delivers the main-topic record, which is then parked/forwarded again (duplicates are
+ * absorbed by the version gate).
+ * <p>
+ * The parked check runs on every main-topic record, so it is answered from memory: the parked aggregates of each
+ * assigned partition are loaded on assignment ({@link #assigned}) and added on park. Only an aggregate found there
+ * costs a DB round trip, which stays authoritative; a release by the retry listener leaves a stale entry that this
+ * check drops. An aggregate can only be parked by the consumer of its main partition, so one missing from memory is
+ * not parked.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "projection.retry", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RetryRouter {
+
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+    public static final String NOT_BEFORE_HEADER = "x-retry-not-before";
+    public static final String ORIGIN_HEADER = "x-retry-origin";
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final KafkaTemplate<Object, Object> template;
+    private final RetryParkingRepository parking;
+    private final RetryPipelineProperties props;
+    private final TransactionTemplate tx;
+    private final KafkaAdmin kafkaAdmin;
+    private final DeadLetterPublishingRecoverer deadLetter;
+    private final Meter.MeterProvider<Counter> routed;
+
+    /**
+     * Parked aggregates by main-topic partition, for the assigned partitions only; each set is only touched by the
+     * consumer thread of its partition, so park and the stale-entry drop cannot race.
+     */
+    private final Map<Integer, Set<UUID>> parkedByPartition = new ConcurrentHashMap<>();
+
+    public RetryRouter(KafkaTemplate<Object, Object> template,
+                       RetryParkingRepository parking,
+                       RetryPipelineProperties props,
+                       PlatformTransactionManager txManager,
+                       KafkaAdmin kafkaAdmin,
+                       MeterRegistry registry) {
+        this.template = template;
+        this.parking = parking;
+        this.props = props;
+        this.kafkaAdmin = kafkaAdmin;
+        this.tx = new TransactionTemplate(txManager);
+        this.deadLetter = new DeadLetterPublishingRecoverer(template, (rec, ex) ->
+                new TopicPartition(CustomerTopics.DLT, rec.partition()));
+        this.routed = Counter.builder("projection.retry.routed")
+                .description("Main-topic records sent to the retry topic")
+                .withRegistry(registry);
+    }
+
+    /**
+     * Recoverer of the main-topic error handler: retryable failures go to the retry topic, the rest to the DLT.
+     */
+    public void recover(ConsumerRecord<?, ?> rec, Exception ex) {
+        if (!(rec.value() instanceof CustomerEventEnvelope e) || !isRetryable(ex)) {
+            deadLetter(rec, ex);
+            return;
+        }
+        log.warn("Apply of {} v{} for aggregate={} failed (part={} off={}); sending to {}",
+                e.eventType(), e.version(), e.aggregateId(), rec.partition(), rec.offset(), CustomerTopics.RETRY, ex);
+        final UUID id = UUID.fromString(e.aggregateId());
+        tx.executeWithoutResult(s -> {
+            parking.park(id, e.version());
+            send(rec, e, 1, System.currentTimeMillis() + props.delayMillis(1));
+        });
+        // the partition's next record is only polled after this returns
+        parkedIn(rec.partition()).add(id);
+        routed.withTags("reason", "failed").increment();
+    }
+
+    /**
+     * Loads the parked aggregates of newly assigned main-topic partitions; called from the main listener's
+     * {@code onPartitionsAssigned}, before any of their records is consumed.
+     */
+    public void assigned(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return;
+        final Map<Integer, Set<UUID>> loaded = new HashMap<>();
+        partitions.forEach(tp -> loaded.put(tp.partition(), ConcurrentHashMap.newKeySet()));
+        final List<UUID> ids = parking.parkedIds();
+        if (!ids.isEmpty()) {
+            final int count = kafkaAdmin.describeTopics(CustomerTopics.EVENTS).get(CustomerTopics.EVENTS).partitions().size();
+            for (UUID id : ids) {
+                final Set<UUID> set = loaded.get(CustomerTopics.partitionOf(id, count));
+                if (set != null) set.add(id);
+            }
+        }
+        parkedByPartition.putAll(loaded);
+        log.debug("Loaded parked aggregates for {}: {} of {} parked", partitions,
+                loaded.values().stream().mapToInt(Set::size).sum(), ids.size());
+    }
+
+    public void revoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(tp -> parkedByPartition.remove(tp.partition()));
+    }
+
+    /**
+     * @return true if the record's aggregate is parked; the record was then forwarded and must not be applied
+     */
+    public boolean forwardIfParked(ConsumerRecord<String, CustomerEventEnvelope> rec) {
+        final CustomerEventEnvelope e = rec.value();
+        final UUID id = UUID.fromString(e.aggregateId());
+        final Set<UUID> parked = parkedIn(rec.partition());
+        if (!parked.contains(id)) return false;
+        final Boolean forwarded = tx.execute(s -> {
+            if (!parking.extendIfParked(id, e.version())) return false;
+            send(rec, e, 0, 0L);
+            return true;
+        });
+        if (Boolean.TRUE.equals(forwarded)) {
+            routed.withTags("reason", "parked").increment();
+            return true;
+        }
+        parked.remove(id); // released elsewhere
+        return false;
+    }
+
+    /**
+     * Batch variant of {@link #forwardIfParked(ConsumerRecord)}: one statement for the whole poll.
+     *
+     * @return the records that were not forwarded, in their original order
+     */
+    public List<ConsumerRecord<String, CustomerEventEnvelope>> forwardParked(
+            List<ConsumerRecord<String, CustomerEventEnvelope>> records) {
+        final Map<UUID, Long> latest = new HashMap<>();
+        for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+            if (rec.value() != null) {
+                final UUID id = UUID.fromString(rec.value().aggregateId());
+                if (parkedIn(rec.partition()).contains(id)) latest.merge(id, rec.value().version(), Math::max);
+            }
+        }
+        if (latest.isEmpty()) return records;
+        final List<ConsumerRecord<String, CustomerEventEnvelope>> remaining = new ArrayList<>(records.size());
+        final Set<UUID> parked = tx.execute(s -> {
+            final Set<UUID> stillParked = parking.extendIfParked(latest);
+            for (ConsumerRecord<String, CustomerEventEnvelope> rec : records) {
+                if (rec.value() != null && stillParked.contains(UUID.fromString(rec.value().aggregateId()))) {
+                    send(rec, rec.value(), 0, 0L);
+                } else {
+                    remaining.add(rec);
+                }
+            }
+            return stillParked;
+        });
+        for (ConsumerRecord<String, CustomerEventEnvelope> rec : remaining) {
+            if (rec.value() != null) {
+                final UUID id = UUID.fromString(rec.value().aggregateId());
+                if (latest.containsKey(id) && !parked.contains(id)) parkedIn(rec.partition()).remove(id); // released
+            }
+        }
+        final int forwarded = records.size() - remaining.size();
+        if (forwarded > 0) routed.withTags("reason", "parked").increment(forwarded);
+        return remaining;
+    }
+
+    /**
+     * Called by {@link CustomerRetryListener} when a retry record is done (applied or dead-lettered).
+     */
+    public void release(CustomerEventEnvelope e) {
+        parking.release(UUID.fromString(e.aggregateId()), e.version());
+    }
+
+    public void deadLetter(ConsumerRecord<?, ?> rec, Exception ex) {
+        log.error("Sending record part={} off={} of {} to {}", rec.partition(), rec.offset(), rec.topic(),
+                CustomerTopics.DLT, ex);
+        deadLetter.accept(rec, ex);
+    }
+
+    private Set<UUID> parkedIn(int partition) {
+        return parkedByPartition.computeIfAbsent(partition, p -> ConcurrentHashMap.newKeySet());
+    }
+
+    public static int attempt(ConsumerRecord<?, ?> rec) {
+        return (int) longHeader(rec.headers(), ATTEMPT_HEADER);
+    }
+
+    public static long notBefore(ConsumerRecord<?, ?> rec) {
+        return longHeader(rec.headers(), NOT_BEFORE_HEADER);
+    }
+
+    /**
+     * Deserialization and validation failures fail the same way on every attempt.
+     */
+    public static boolean isRetryable(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof DeserializationException || t instanceof IllegalArgumentException) return false;
+        }
+        return true;
+    }
+
+    private void send(ConsumerRecord<?, ?> origin, CustomerEventEnvelope e, int attempt, long notBefore) {
+        final ProducerRecord<Object, Object> out =
+                new ProducerRecord<>(CustomerTopics.RETRY, null, e.aggregateId(), e);
+        out.headers().add(ATTEMPT_HEADER, ascii(attempt));
+        out.headers().add(NOT_BEFORE_HEADER, ascii(notBefore));
+        out.headers().add(ORIGIN_HEADER, ascii(origin.topic() + "-" + origin.partition() + "@" + origin.offset()));
+        if (e.coalescedFrom() != null) {
+            out.headers().add(CustomerEventEnvelope.COALESCED_FROM_HEADER, ascii(e.coalescedFrom()));
+        }
+        try {
+            template.send(out).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending to " + CustomerTopics.RETRY, ie);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not send to " + CustomerTopics.RETRY, ex);
+        }
+    }
+
+    private static byte[] ascii(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static long longHeader(Headers headers, String name) {
+        final Header h = headers.lastHeader(name);
+        if (h == null || h.value() == null) return 0L;
+        try {
+            return Long.parseLong(new String(h.value(), StandardCharsets.US_ASCII));
+        } catch (NumberFormatException ex) {
+            return 0L;
+        }
+    }
+}
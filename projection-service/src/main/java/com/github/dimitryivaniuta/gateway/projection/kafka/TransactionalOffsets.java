@@ -0,0 +1,70 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import com.github.dimitryivaniuta.gateway.projection.repo.ConsumedOffsets;
+import com.github.dimitryivaniuta.gateway.projection.repo.ProjectionOffsetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer positions kept in {@code read.projection_offsets} ({@code projection.offsets.transactional=true},
+ * record and batch modes).
+ * <p>
+ * The listeners hand {@link #of} to the projector, which stores it in the transaction that applies the events;
+ * on assignment {@link #seekToStored} moves each partition to its stored position when that is ahead of the
+ * Kafka-committed one. A committed transaction is therefore never re-applied, whether or not the offset commit
+ * that follows it reached the broker, and that commit can be asynchronous ({@link TransactionalOffsetsConfig}).
+ * <p>
+ * Records that never reach the database (null payloads, records forwarded to the retry topic) advance only the
+ * Kafka position; seeking to the greater of both covers them.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${projection.offsets.transactional:true} "
+        + "and ('${projection.listener.mode:record}' == 'record' or '${projection.listener.mode:record}' == 'batch')")
+public class TransactionalOffsets {
+
+    private final ProjectionOffsetRepository repository;
+    private final String groupId;
+
+    public TransactionalOffsets(ProjectionOffsetRepository repository,
+                                @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.repository = repository;
+        this.groupId = groupId;
+    }
+
+    public ConsumedOffsets of(ConsumerRecord<?, ?> rec) {
+        return new ConsumedOffsets(groupId, Map.of(new TopicPartition(rec.topic(), rec.partition()), rec.offset() + 1));
+    }
+
+    public ConsumedOffsets of(List<? extends ConsumerRecord<?, ?>> records) {
+        final Map<TopicPartition, Long> next = new HashMap<>();
+        for (ConsumerRecord<?, ?> rec : records) {
+            next.merge(new TopicPartition(rec.topic(), rec.partition()), rec.offset() + 1, Math::max);
+        }
+        return new ConsumedOffsets(groupId, next);
+    }
+
+    /**
+     * @param assignments newly assigned partitions and their current (Kafka-committed) positions
+     */
+    public void seekToStored(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (assignments.isEmpty()) return;
+        final Map<TopicPartition, Long> stored = repository.load(groupId);
+        assignments.forEach((tp, position) -> {
+            final Long next = stored.get(tp);
+            if (next != null && (position == null || next > position)) {
+                log.info("Seeking {} to stored offset {} (Kafka position {})", tp, next, position);
+                callback.seek(tp.topic(), tp.partition(), next);
+            }
+        });
+    }
+}
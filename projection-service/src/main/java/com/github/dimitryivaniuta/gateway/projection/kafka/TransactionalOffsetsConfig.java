@@ -0,0 +1,29 @@
+package com.github.dimitryivaniuta.gateway.projection.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+
+/**
+ * With {@link TransactionalOffsets} the database holds the authoritative position of the main consumer group, so
+ * its Kafka offset commits only save a seek on restart: they are sent asynchronously instead of blocking the
+ * consumer thread for a broker round trip after every transaction.
+ */
+@Configuration
+@ConditionalOnExpression("${projection.offsets.transactional:true} "
+        + "and ('${projection.listener.mode:record}' == 'record' or '${projection.listener.mode:record}' == 'batch')")
+class TransactionalOffsetsConfig {
+
+    @Bean
+    ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> asyncOffsetCommits(
+            @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        return container -> {
+            if (groupId.equals(container.getGroupId())) {
+                container.getContainerProperties().setSyncCommits(false);
+            }
+        };
+    }
+}
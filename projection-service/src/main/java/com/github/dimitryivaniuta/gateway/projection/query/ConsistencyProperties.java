@@ -0,0 +1,21 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes waiting ({@code projection.consistency.*}).
+ *
+ * @param defaultWait how long a {@code min-version} read waits when the client does not say
+ * @param maxWait     upper bound for a client-supplied wait
+ * @param maxWaiters  concurrent waiters per instance; beyond that reads fail fast instead of queueing
+ */
+@ConfigurationProperties(prefix = "projection.consistency")
+public record ConsistencyProperties(
+        @DefaultValue("2s") Duration defaultWait,
+        @DefaultValue("10s") Duration maxWait,
+        @DefaultValue("10000") int maxWaiters
+) {
+}
@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * In-process read cache bounds ({@code projection.cache.*}).
+ *
+ * @param maxSize max cached customers (and, separately, email -> id mappings)
+ * @param ttl     expire entries this long after they were loaded; a safety net, commits invalidate eagerly
+ */
+@ConfigurationProperties(prefix = "projection.cache")
+public record CustomerCacheProperties(
+        @DefaultValue("100000") long maxSize,
+        @DefaultValue("5m") Duration ttl
+) {
+}
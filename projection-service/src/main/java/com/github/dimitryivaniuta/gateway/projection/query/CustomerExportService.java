@@ -0,0 +1,164 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams {@code read.customers_view} to an {@link OutputStream} in constant memory, for analytics dumps.
+ * <ul>
+ *   <li>{@link Format#CSV}: {@code COPY (...) TO STDOUT (FORMAT csv, HEADER)}; Postgres renders the rows and the
+ *   driver copies each one straight to the output.</li>
+ *   <li>{@link Format#NDJSON}: a server-side cursor (read-only transaction, forward-only, {@code fetch-size} rows
+ *   per round trip), one JSON object per line written through a {@link JsonGenerator}.</li>
+ * </ul>
+ * Both block on the output stream, so a slow client throttles the read instead of buffering it (HTTP
+ * backpressure); a disconnect aborts the statement. Rows are unordered (a sequential scan).
+ * <p>
+ * Incremental exports filter on {@code change_marker} (id of the transaction that last wrote the row, see
+ * {@code V5__customers_view_change_marker.sql}) against a {@link #watermark()} returned by an earlier export.
+ * Deleted customers have no row left, so deletes only show up as absences in a full export.
+ * <p>
+ * Each export holds a pooled connection until it ends, so at most {@code max-concurrent} run at once; callers
+ * take a slot with {@link #tryAcquire()} before starting.
+ */
+@Slf4j
+@Service
+public class CustomerExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String COLUMNS = "select id, name, email, version from read.customers_view";
+
+    private final DataSource dataSource;
+    private final ObjectMapper mapper;
+    private final ExportProperties props;
+    private final Semaphore slots;
+    private final Meter.MeterProvider<Timer> exportTimer;
+    private final Meter.MeterProvider<Counter> rowCounter;
+
+    public CustomerExportService(DataSource dataSource, ObjectMapper mapper, ExportProperties props, MeterRegistry registry) {
+        this.dataSource = dataSource;
+        this.mapper = mapper;
+        this.props = props;
+        this.slots = new Semaphore(props.maxConcurrent());
+        this.exportTimer = Timer.builder("projection.export")
+                .description("One bulk export, first row to last byte written")
+                .withRegistry(registry);
+        this.rowCounter = Counter.builder("projection.export.rows")
+                .description("Rows written by bulk exports")
+                .withRegistry(registry);
+    }
+
+    /**
+     * @return whether an export slot was taken; pair with {@link #release()}
+     */
+    public boolean tryAcquire() {
+        return slots.tryAcquire();
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    /**
+     * Oldest transaction still running now: every transaction below it has ended, so an export that starts after
+     * this call sees all of their writes. Pass it as {@code since} to the next export; taking it before the export
+     * only makes the next one repeat a few more rows.
+     */
+    public long watermark() throws SQLException {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("select pg_snapshot_xmin(pg_current_snapshot())::text::bigint")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Writes every row, or with {@code since} only the rows written at or after that {@link #watermark()}.
+     *
+     * @return rows written
+     */
+    public long export(Format format, Long since, OutputStream out) throws IOException, SQLException {
+        final long t0 = System.nanoTime();
+        String outcome = "error";
+        long rows = 0;
+        try {
+            rows = format == Format.CSV
+                    ? copyCsv(since, out)
+                    : cursorNdjson(since, out);
+            outcome = "ok";
+            return rows;
+        } catch (IOException e) {
+            outcome = "aborted"; // client went away
+            throw e;
+        } finally {
+            final String f = format.name().toLowerCase();
+            exportTimer.withTags("format", f, "outcome", outcome).record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            rowCounter.withTags("format", f).increment(rows);
+            log.info("Export format={} since={} rows={} outcome={} in {} ms",
+                    f, since, rows, outcome, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        }
+    }
+
+    private long copyCsv(Long since, OutputStream out) throws IOException, SQLException {
+        // COPY takes no bind parameters; the bound is a long, so inlining it is safe
+        final String sql = "COPY (" + COLUMNS + (since == null ? "" : " where change_marker >= " + since)
+                + ") TO STDOUT (FORMAT csv, HEADER)";
+        try (Connection con = dataSource.getConnection()) {
+            // on an IOException from 'out' the driver cancels the COPY before rethrowing
+            return con.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        }
+    }
+
+    private long cursorNdjson(Long since, OutputStream out) throws IOException, SQLException {
+        final String sql = COLUMNS + (since == null ? "" : " where change_marker >= ?");
+        try (Connection con = dataSource.getConnection()) {
+            // pgjdbc only streams with a cursor inside a transaction and with a fetch size
+            con.setAutoCommit(false);
+            con.setReadOnly(true);
+            try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(props.fetchSize());
+                if (since != null) ps.setLong(1, since);
+                try (ResultSet rs = ps.executeQuery();
+                     JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                    gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    gen.setRootValueSeparator(new SerializedString("\n"));
+                    long rows = 0;
+                    while (rs.next()) {
+                        gen.writeStartObject();
+                        gen.writeStringField("id", rs.getString(1));
+                        gen.writeStringField("name", rs.getString(2));
+                        gen.writeStringField("email", rs.getString(3));
+                        gen.writeNumberField("version", rs.getLong(4));
+                        gen.writeEndObject();
+                        rows++;
+                    }
+                    if (rows > 0) gen.writeRaw('\n');
+                    return rows;
+                }
+            } finally {
+                con.rollback(); // read-only; ends the transaction holding the cursor
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewRepository;
+import com.github.dimitryivaniuta.gateway.projection.store.LocalCustomerStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read side of the projection: point lookups are served from {@link CustomerViewCache}, pages from Postgres.
+ * In local-store mode, point lookups of the partitions this instance consumes come from {@link LocalCustomerStore}.
+ */
+@Service
+public class CustomerQueryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final CustomerViewRepository repository;
+    private final CustomerViewCache cache;
+    private final VersionWaiters waiters;
+    private final ConsistencyProperties consistency;
+
+    /**
+     * Null unless {@code projection.listener.mode=local}.
+     */
+    private final LocalCustomerStore local;
+
+    /**
+     * Re-reads after a wake-up happen here, never on the projector thread that completed the waiter.
+     */
+    private final Executor readers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CustomerQueryService(CustomerViewRepository repository,
+                                CustomerViewCache cache,
+                                VersionWaiters waiters,
+                                ConsistencyProperties consistency,
+                                ObjectProvider<LocalCustomerStore> localStore) {
+        this.repository = repository;
+        this.cache = cache;
+        this.waiters = waiters;
+        this.consistency = consistency;
+        this.local = localStore.getIfAvailable();
+    }
+
+    public Optional<CustomerReadModel> findById(UUID id) {
+        if (local != null && local.serves(id)) {
+            return local.get(id);
+        }
+        return cache.get(id, this::load);
+    }
+
+    /**
+     * Read-your-writes lookup: completes once the projection holds {@code id} at {@code minVersion} or newer
+     * (or has deleted it), without polling the DB; fails with {@code TimeoutException} after {@code wait}
+     * (defaulted and capped by {@code projection.consistency.*}).
+     */
+    public CompletableFuture<Optional<CustomerReadModel>> findByIdAtLeast(UUID id, long minVersion, Duration wait) {
+        final Duration timeout = wait == null
+                ? consistency.defaultWait()
+                : wait.compareTo(consistency.maxWait()) > 0 ? consistency.maxWait() : wait;
+
+        final CompletableFuture<Void> ready = waiters.register(id, minVersion); // register first, then check
+        final Optional<CustomerReadModel> now = findById(id);
+        if (now.isPresent() && now.get().version() >= minVersion) {
+            ready.cancel(false);
+            return CompletableFuture.completedFuture(now);
+        }
+        return ready
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenComposeAsync(ignored -> {
+                    final Optional<CustomerReadModel> woken = findById(id);
+                    // local-store mode: the Postgres sink may report the version before the store holds it
+                    return woken.isPresent() && woken.get().version() < minVersion
+                            ? findByIdAtLeast(id, minVersion, timeout)
+                            : CompletableFuture.completedFuture(woken);
+                }, readers);
+    }
+
+    public Optional<CustomerReadModel> findByEmail(String email) {
+        Optional<UUID> cachedId = cache.idForEmail(email);
+        if (cachedId.isPresent()) {
+            Optional<CustomerReadModel> hit = findById(cachedId.get());
+            if (hit.isPresent() && hit.get().email().equals(email)) {
+                return hit;
+            }
+            cache.forgetEmail(email); // email moved or customer deleted
+        }
+        Optional<CustomerReadModel> found = repository.findByEmail(email).map(CustomerReadModel::of);
+        found.ifPresent(cache::rememberEmail);
+        return found;
+    }
+
+    /**
+     * @param after last id of the previous page, or null for the first page
+     * @param limit page size, clamped to 1..{@value #MAX_PAGE_SIZE}
+     */
+    public List<CustomerReadModel> page(UUID after, int limit) {
+        int size = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        return repository.findPageAfter(after, size).stream().map(CustomerReadModel::of).toList();
+    }
+
+    private Optional<CustomerReadModel> load(UUID id) {
+        return repository.findById(id).map(CustomerReadModel::of);
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.github.dimitryivaniuta.gateway.projection.model.CustomerView;
+
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of a {@link CustomerView} row; what the cache holds and the read API returns.
+ */
+public record CustomerReadModel(UUID id, String name, String email, long version) {
+
+    public static CustomerReadModel of(CustomerView v) {
+        return new CustomerReadModel(v.getId(), v.getName(), v.getEmail(), v.getVersion());
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerSearchRepository;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerSearchRepository.Field;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerSearchRepository.Hit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Prefix and fuzzy customer search (always Postgres, including in local-store mode).
+ * <p>
+ * Pages are keyset-paginated; the cursor is opaque to clients (base64url of the last hit's sort key and id).
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerSearchService {
+
+    /**
+     * Below three characters a query has no complete trigram to look up in the GIN index.
+     */
+    public static final int MIN_FUZZY_LENGTH = 3;
+
+    /**
+     * @param nextAfter cursor of the next page, null on the last page
+     */
+    public record SearchPage(List<CustomerReadModel> items, String nextAfter) {
+    }
+
+    private record Cursor(String key, UUID id) {
+    }
+
+    private final CustomerSearchRepository repository;
+
+    /**
+     * @throws IllegalArgumentException for a blank prefix or a malformed cursor
+     */
+    public SearchPage byPrefix(Field field, String prefix, String after, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("prefix must not be blank");
+        }
+        final int size = Math.clamp(limit, 1, CustomerQueryService.MAX_PAGE_SIZE);
+        final Cursor cursor = decode(after);
+        return page(repository.byPrefix(field, prefix,
+                cursor == null ? null : cursor.key(), cursor == null ? null : cursor.id(), size), size);
+    }
+
+    /**
+     * @throws IllegalArgumentException for a query shorter than {@value #MIN_FUZZY_LENGTH} or a malformed cursor
+     */
+    public SearchPage fuzzy(String query, String after, int limit) {
+        if (query == null || query.strip().length() < MIN_FUZZY_LENGTH) {
+            throw new IllegalArgumentException("fuzzy query needs at least " + MIN_FUZZY_LENGTH + " characters");
+        }
+        final int size = Math.clamp(limit, 1, CustomerQueryService.MAX_PAGE_SIZE);
+        final Cursor cursor = decode(after);
+        final Float afterScore;
+        try {
+            afterScore = cursor == null ? null : Float.valueOf(cursor.key());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+        return page(repository.fuzzy(query.strip(), afterScore, cursor == null ? null : cursor.id(), size), size);
+    }
+
+    private static SearchPage page(List<Hit> hits, int size) {
+        final List<CustomerReadModel> items = hits.stream()
+                .map(h -> new CustomerReadModel(h.id(), h.name(), h.email(), h.version()))
+                .toList();
+        final String next = hits.size() < size ? null : encode(new Cursor(hits.getLast().sortKey(), hits.getLast().id()));
+        return new SearchPage(items, next);
+    }
+
+    private static String encode(Cursor c) {
+        final String raw = c.id() + ":" + c.key(); // id first: fixed length, so the key may contain ':'
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String after) {
+        if (after == null || after.isBlank()) return null;
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            return new Cursor(raw.substring(37), UUID.fromString(raw.substring(0, 36)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewsChanged;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded (size + TTL) in-memory cache of customer views, kept consistent by the projector itself:
+ * every committed {@link CustomerViewsChanged} evicts the touched ids.
+ * <p>
+ * Loads go through Caffeine's atomic {@code get(key, loader)}; an eviction racing with an in-flight load waits
+ * for that load and then removes its (possibly older) result, so a committed change is never masked.
+ * Misses are cached too (as empty), so unknown ids do not hammer the DB; a later create evicts them.
+ * <p>
+ * Email lookups cache only {@code email -> id}; the hit is verified against the id entry, so a changed email
+ * can never return the wrong customer.
+ */
+@Component
+public class CustomerViewCache {
+
+    private final Cache<UUID, Optional<CustomerReadModel>> byId;
+    private final Cache<String, UUID> idByEmail;
+
+    public CustomerViewCache(CustomerCacheProperties props) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(props.maxSize())
+                .expireAfterWrite(props.ttl())
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(props.maxSize())
+                .expireAfterWrite(props.ttl())
+                .build();
+    }
+
+    public Optional<CustomerReadModel> get(UUID id, Function<UUID, Optional<CustomerReadModel>> loader) {
+        return byId.get(id, loader);
+    }
+
+    public Optional<UUID> idForEmail(String email) {
+        return Optional.ofNullable(idByEmail.getIfPresent(email));
+    }
+
+    public void rememberEmail(CustomerReadModel customer) {
+        idByEmail.put(customer.email(), customer.id());
+    }
+
+    public void forgetEmail(String email) {
+        idByEmail.invalidate(email);
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE) // evict before VersionWaiters wakes readers
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommitted(CustomerViewsChanged event) {
+        for (CustomerViewsChanged.Change c : event.changes()) {
+            byId.invalidate(c.id());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Bulk export ({@code projection.export.*}).
+ *
+ * @param maxConcurrent exports running at once; each holds one pooled connection for its whole duration
+ * @param fetchSize     rows per cursor round trip (NDJSON); bounds the rows held in memory
+ */
+@ConfigurationProperties(prefix = "projection.export")
+public record ExportProperties(
+        @DefaultValue("2") int maxConcurrent,
+        @DefaultValue("1000") int fetchSize
+) {
+    public ExportProperties {
+        if (maxConcurrent < 1 || fetchSize < 1) {
+            throw new IllegalArgumentException("projection.export requires max-concurrent >= 1 and fetch-size >= 1");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.dimitryivaniuta.gateway.projection.query;
+
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewsChanged;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory registry of readers waiting for "aggregate {@code id} projected at version >= N".
+ * <p>
+ * Completed from the projector's committed {@link CustomerViewsChanged} events, so waiting costs no DB polling.
+ * Runs after {@link CustomerViewCache} evicts ({@code @Order}), so a woken reader never sees the stale entry.
+ * Callers must register <em>before</em> checking the stored version, otherwise a commit in between is missed.
+ */
+@Component
+public class VersionWaiters {
+
+    private record Waiter(long minVersion, CompletableFuture<Void> future) {
+    }
+
+    private final ConcurrentHashMap<UUID, List<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    private final int maxWaiters;
+
+    public VersionWaiters(ConsistencyProperties props) {
+        this.maxWaiters = props.maxWaiters();
+    }
+
+    /**
+     * @return a future completed once a commit reports {@code id} at {@code minVersion} or newer; cancel it (or
+     * let it time out) to deregister. Fails immediately with {@link RejectedExecutionException} when full.
+     */
+    public CompletableFuture<Void> register(UUID id, long minVersion) {
+        if (count.incrementAndGet() > maxWaiters) {
+            count.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many consistency waiters"));
+        }
+        final Waiter w = new Waiter(minVersion, new CompletableFuture<>());
+        waiters.compute(id, (k, list) -> {
+            List<Waiter> l = list == null ? new ArrayList<>(2) : list;
+            l.add(w);
+            return l;
+        });
+        w.future().whenComplete((r, ex) -> remove(id, w));
+        return w.future();
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommitted(CustomerViewsChanged event) {
+        if (count.get() == 0) return;
+
+        final List<Waiter> ready = new ArrayList<>();
+        for (CustomerViewsChanged.Change c : event.changes()) {
+            waiters.computeIfPresent(c.id(), (k, list) -> {
+                list.removeIf(w -> {
+                    if (c.deleted() || w.minVersion() <= c.version()) {
+                        ready.add(w);
+                        count.decrementAndGet();
+                        return true;
+                    }
+                    return false;
+                });
+                return list.isEmpty() ? null : list;
+            });
+        }
+        ready.forEach(w -> w.future().complete(null));
+    }
+
+    private void remove(UUID id, Waiter w) {
+        waiters.computeIfPresent(id, (k, list) -> {
+            if (list.remove(w)) count.decrementAndGet();
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
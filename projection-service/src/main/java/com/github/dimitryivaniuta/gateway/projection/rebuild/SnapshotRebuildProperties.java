@@ -0,0 +1,21 @@
+package com.github.dimitryivaniuta.gateway.projection.rebuild;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Snapshot rebuild of {@code read.customers_view} ({@code projection.rebuild.*}).
+ *
+ * @param onStartup      rebuild before the Kafka listeners start, then resume from the snapshot's offsets
+ * @param sourceUrl      JDBC URL of the write store; blank = the projection's own datasource (same database)
+ * @param sourceUsername credentials for {@code sourceUrl}
+ * @param sourcePassword credentials for {@code sourceUrl}
+ */
+@ConfigurationProperties(prefix = "projection.rebuild")
+public record SnapshotRebuildProperties(
+        @DefaultValue("false") boolean onStartup,
+        @DefaultValue("") String sourceUrl,
+        @DefaultValue("") String sourceUsername,
+        @DefaultValue("") String sourcePassword
+) {
+}
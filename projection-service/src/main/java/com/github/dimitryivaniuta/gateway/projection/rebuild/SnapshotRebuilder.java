@@ -0,0 +1,301 @@
+package com.github.dimitryivaniuta.gateway.projection.rebuild;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyOut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds {@code read.customers_view} from a snapshot of {@code write.customers} instead of replaying the topic
+ * ({@code projection.rebuild.on-startup=true}).
+ * <p>
+ * Runs as a lifecycle phase just before the Kafka listener containers, so nothing is consumed meanwhile:
+ * <ol>
+ *   <li>read the topic's end offsets (read_committed, i.e. the last stable offsets) - <b>before</b> the snapshot,
+ *   so every event committed after the snapshot sits at or after these offsets;</li>
+ *   <li>open a {@code REPEATABLE READ} snapshot on the write store and stream it with binary
+ *   {@code COPY ... TO STDOUT} straight into {@code COPY ... FROM STDIN} of a shadow table
+ *   (constant memory, no per-row statements);</li>
+ *   <li>recreate the live table's indexes/constraints on the shadow after the load (cheaper than maintaining
+ *   them row by row), then drop the live table and rename the shadow into place in one transaction, and recreate
+ *   the live table's triggers on it (e.g. the change-marker trigger behind incremental exports);</li>
+ *   <li>store the offsets of step 1 in {@code read.projection_offsets} within the swap transaction, and set the
+ *   consumer group's offsets to them, so normal consumption resumes from there. Events between
+ *   those offsets and the snapshot are replayed but rejected by the version gate.</li>
+ * </ol>
+ * A failure before the swap leaves the live table untouched; a failure after it fails startup before any
+ * listener runs. The group must have no active members (stop other instances while rebuilding).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "projection.rebuild", name = "on-startup", havingValue = "true")
+public class SnapshotRebuilder implements SmartLifecycle {
+
+    private static final String SCHEMA = "read";
+    private static final String LIVE = "customers_view";
+    private static final String SHADOW = "customers_view_rebuild";
+    private static final String SUFFIX = "_rb";
+
+    private static final String COPY_OUT =
+            "COPY (select id, name, email, version from write.customers) TO STDOUT (FORMAT binary)";
+    private static final String COPY_IN =
+            "COPY read." + SHADOW + " (id, name, email, version) FROM STDIN (FORMAT binary)";
+
+    private record IndexDef(String name, String ddl, String constraintType) {
+    }
+
+    private final DataSource dataSource;
+    private final SnapshotRebuildProperties props;
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaAdmin kafkaAdmin;
+    private final String groupId;
+
+    private volatile boolean running;
+
+    public SnapshotRebuilder(DataSource dataSource,
+                             SnapshotRebuildProperties props,
+                             ConsumerFactory<Object, Object> consumerFactory,
+                             KafkaAdmin kafkaAdmin,
+                             @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.dataSource = dataSource;
+        this.props = props;
+        this.consumerFactory = consumerFactory;
+        this.kafkaAdmin = kafkaAdmin;
+        this.groupId = groupId;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            throw new IllegalStateException("Snapshot rebuild of read." + LIVE + " failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Before the listener containers ({@link AbstractMessageListenerContainer#DEFAULT_PHASE}).
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+
+    private void rebuild() throws Exception {
+        final long t0 = System.nanoTime();
+        final Map<TopicPartition, Long> offsets;
+        final long rows;
+
+        try (Connection target = dataSource.getConnection(); Connection source = openSource()) {
+            target.setAutoCommit(false);
+            source.setAutoCommit(false);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            source.setReadOnly(true);
+            try {
+                final List<IndexDef> indexes = liveIndexes(target);
+                final List<String> triggers = liveTriggers(target);
+                createShadow(target);
+
+                offsets = endOffsets(); // strictly before the snapshot below is taken
+                rows = copy(source, target);
+                source.commit();
+                log.info("Rebuild: copied {} rows into read.{} in {} ms", rows, SHADOW, millisSince(t0));
+
+                buildIndexes(target, indexes);
+                swap(target, indexes, triggers);
+                storeOffsets(target, offsets);
+                target.commit();
+            } catch (Exception e) {
+                target.rollback();
+                source.rollback();
+                throw e;
+            }
+        }
+
+        commitOffsets(offsets);
+        log.info("Rebuild: read.{} swapped in ({} rows) in {} ms; group {} resumes at {}",
+                LIVE, rows, millisSince(t0), groupId, offsets);
+    }
+
+    private Connection openSource() throws SQLException {
+        if (props.sourceUrl() == null || props.sourceUrl().isBlank()) {
+            return dataSource.getConnection();
+        }
+        return DriverManager.getConnection(props.sourceUrl(), props.sourceUsername(), props.sourcePassword());
+    }
+
+    private static List<IndexDef> liveIndexes(Connection con) throws SQLException {
+        final List<IndexDef> out = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("""
+                     select i.indexname, i.indexdef, c.contype
+                       from pg_indexes i
+                       left join pg_constraint c
+                              on c.conname = i.indexname
+                             and c.connamespace = 'read'::regnamespace
+                      where i.schemaname = 'read'
+                        and i.tablename = 'customers_view'
+                     """)) {
+            while (rs.next()) {
+                out.add(new IndexDef(rs.getString(1), rs.getString(2), rs.getString(3)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * {@code CREATE TRIGGER ... ON read.customers_view ...} statements; they apply unchanged once the shadow has
+     * taken the live table's name.
+     */
+    private static List<String> liveTriggers(Connection con) throws SQLException {
+        final List<String> out = new ArrayList<>();
+        try (Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("""
+                     select pg_get_triggerdef(t.oid)
+                       from pg_trigger t
+                      where t.tgrelid = 'read.customers_view'::regclass
+                        and not t.tgisinternal
+                     """)) {
+            while (rs.next()) {
+                out.add(rs.getString(1));
+            }
+        }
+        return out;
+    }
+
+    private static void createShadow(Connection con) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("drop table if exists " + SCHEMA + "." + SHADOW);
+            // columns, NOT NULLs and defaults only; indexes come after the load
+            st.execute("create table " + SCHEMA + "." + SHADOW
+                    + " (like " + SCHEMA + "." + LIVE + " including defaults including constraints)");
+        }
+    }
+
+    private static long copy(Connection source, Connection target) throws SQLException {
+        final CopyOut out = source.unwrap(PGConnection.class).getCopyAPI().copyOut(COPY_OUT);
+        final CopyIn in = target.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IN);
+        try {
+            byte[] buf;
+            while ((buf = out.readFromCopy()) != null) {
+                in.writeToCopy(buf, 0, buf.length);
+            }
+            return in.endCopy();
+        } finally {
+            if (in.isActive()) in.cancelCopy();
+            if (out.isActive()) out.cancelCopy();
+        }
+    }
+
+    private static void buildIndexes(Connection con, List<IndexDef> indexes) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            for (IndexDef idx : indexes) {
+                final String shadowName = idx.name() + SUFFIX;
+                st.execute(idx.ddl().replace(
+                        "INDEX " + idx.name() + " ON " + SCHEMA + "." + LIVE + " ",
+                        "INDEX " + shadowName + " ON " + SCHEMA + "." + SHADOW + " "));
+                if ("p".equals(idx.constraintType()) || "u".equals(idx.constraintType())) {
+                    st.execute("alter table " + SCHEMA + "." + SHADOW + " add constraint " + shadowName
+                            + ("p".equals(idx.constraintType()) ? " primary key" : " unique")
+                            + " using index " + shadowName);
+                }
+            }
+        }
+    }
+
+    private static void swap(Connection con, List<IndexDef> indexes, List<String> triggers) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("lock table " + SCHEMA + "." + LIVE + " in access exclusive mode");
+            st.execute("drop table " + SCHEMA + "." + LIVE);
+            st.execute("alter table " + SCHEMA + "." + SHADOW + " rename to " + LIVE);
+            for (IndexDef idx : indexes) {
+                // renaming a constraint's index renames the constraint as well
+                st.execute("alter index " + SCHEMA + "." + idx.name() + SUFFIX + " rename to " + idx.name());
+            }
+            for (String ddl : triggers) {
+                st.execute(ddl);
+            }
+        }
+    }
+
+    /**
+     * Replaces the group's stored positions (see {@code TransactionalOffsets}), which would otherwise point into
+     * the replaced table's history.
+     */
+    private void storeOffsets(Connection con, Map<TopicPartition, Long> offsets) throws SQLException {
+        try (PreparedStatement del = con.prepareStatement("delete from read.projection_offsets where consumer_group = ?");
+             PreparedStatement ins = con.prepareStatement(
+                     "insert into read.projection_offsets (consumer_group, topic, partition, next_offset) values (?, ?, ?, ?)")) {
+            del.setString(1, groupId);
+            del.executeUpdate();
+            for (Map.Entry<TopicPartition, Long> e : offsets.entrySet()) {
+                ins.setString(1, groupId);
+                ins.setString(2, e.getKey().topic());
+                ins.setInt(3, e.getKey().partition());
+                ins.setLong(4, e.getValue());
+                ins.addBatch();
+            }
+            ins.executeBatch();
+        }
+    }
+
+    private Map<TopicPartition, Long> endOffsets() {
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(groupId + "-rebuild", "snapshot-rebuild", null)) {
+            final List<TopicPartition> partitions = consumer.partitionsFor(CustomerTopics.EVENTS).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            return consumer.endOffsets(partitions);
+        }
+    }
+
+    private void commitOffsets(Map<TopicPartition, Long> offsets) throws Exception {
+        final Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>();
+        offsets.forEach((tp, offset) -> commit.put(tp, new OffsetAndMetadata(offset, "snapshot-rebuild")));
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            admin.alterConsumerGroupOffsets(groupId, commit).all().get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("read." + LIVE + " was rebuilt but offsets of group " + groupId
+                    + " could not be set (is another instance still consuming?); restart with rebuild to retry", e);
+        }
+    }
+
+    private static long millisSince(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
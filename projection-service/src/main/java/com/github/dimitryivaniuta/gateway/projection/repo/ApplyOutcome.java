@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+/**
+ * What {@link CustomerViewRepository#applyEvent} did with an event.
+ */
+public enum ApplyOutcome {
+    /** Next version applied. */
+    APPLIED,
+    /** Applied, but the stored version was more than one behind (missed or reordered events upstream). */
+    GAP,
+    /** Version not newer than the stored one (duplicate or out-of-order redelivery); ignored. */
+    STALE,
+    /** Unrecognized event type; ignored. */
+    UNKNOWN;
+
+    public boolean changed() {
+        return this == APPLIED || this == GAP;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+
+import java.util.List;
+
+/**
+ * What {@link CustomerViewRepository#applyBatch} did with a poll.
+ *
+ * @param aggregates distinct aggregates the batch touched (unknown types and known-stale events excluded)
+ * @param applied    events that changed the view: per aggregate, the event whose upsert/delete the database
+ *                   actually performed, plus the changing events of the per-event fallback; stale and duplicate
+ *                   events are not in it
+ */
+public record BatchOutcome(int aggregates, List<CustomerEventEnvelope> applied) {
+}
@@ -0,0 +1,14 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+
+/**
+ * Consumer position reached by the events of one projecting transaction.
+ *
+ * @param groupId     consumer group the position belongs to
+ * @param nextOffsets per partition, the offset after the last record covered by the transaction
+ */
+public record ConsumedOffsets(String groupId, Map<TopicPartition, Long> nextOffsets) {
+}
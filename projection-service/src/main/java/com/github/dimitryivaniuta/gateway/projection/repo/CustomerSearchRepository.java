@@ -0,0 +1,121 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset-paginated search over {@code read.customers_view}, backed by the {@code V3__search_indexes.sql} indexes.
+ * <p>
+ * Prefix pages are ordered by {@code (lower(col), id)} in byte order ({@code USING ~<~}, the order of the
+ * {@code text_pattern_ops} index), so the scan starts at the cursor instead of skipping earlier pages.
+ * Fuzzy pages are ordered by trigram similarity (descending) then id; the GIN index finds the candidates above
+ * {@code pg_trgm.similarity_threshold} and only those are scored and sorted.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CustomerSearchRepository {
+
+    /**
+     * Searchable column of {@code read.customers_view}; the name is interpolated into SQL, never user input.
+     */
+    public enum Field {
+        NAME("name"), EMAIL("email");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * @param sortKey the row's position in its ordering: {@code lower(col)} for prefix pages, the similarity
+     *                score for fuzzy pages; pass it back with {@code id} to fetch the next page
+     */
+    public record Hit(UUID id, String name, String email, long version, String sortKey) {
+    }
+
+    private static final String PREFIX_SQL = """
+            select id, name, email, version, lower(%1$s) as sort_key
+              from read.customers_view
+             where lower(%1$s) like lower(:pattern) escape '\\'
+               %2$s
+             order by lower(%1$s) using ~<~, id
+             limit :limit
+            """;
+
+    // the ~>=~ bound is what the index range starts at; the OR only filters rows equal to the cursor key
+    private static final String PREFIX_AFTER = """
+            and lower(%1$s) ~>=~ :afterKey
+               and (lower(%1$s) ~>~ :afterKey or id > :afterId)""";
+
+    private static final String FUZZY_SQL = """
+            select id, name, email, version, score as sort_key
+              from (select id, name, email, version,
+                           greatest(similarity(lower(name), lower(:q)), similarity(lower(email), lower(:q))) as score
+                      from read.customers_view
+                     where lower(name) operator(public.%%) lower(:q)
+                        or lower(email) operator(public.%%) lower(:q)) s
+             where %s
+             order by score desc, id
+             limit :limit
+            """;
+
+    private static final String FUZZY_AFTER = "(score < :afterScore or (score = :afterScore and id > :afterId))";
+
+    private static final RowMapper<Hit> HIT = (rs, i) -> new Hit(
+            rs.getObject("id", UUID.class),
+            rs.getString("name"),
+            rs.getString("email"),
+            rs.getLong("version"),
+            rs.getString("sort_key"));
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Case-insensitive "starts with"; {@code %}, {@code _} and {@code \} in the prefix match literally.
+     *
+     * @param afterKey {@link Hit#sortKey} of the previous page's last hit, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public List<Hit> byPrefix(Field field, String prefix, String afterKey, UUID afterId, int limit) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("pattern", escapeLike(prefix) + "%")
+                .addValue("limit", limit);
+        String after = "";
+        if (afterKey != null) {
+            after = PREFIX_AFTER.formatted(field.column);
+            params.addValue("afterKey", afterKey).addValue("afterId", afterId);
+        }
+        return jdbc.query(PREFIX_SQL.formatted(field.column, after), params, HIT);
+    }
+
+    /**
+     * Trigram match on name or email, best matches first.
+     *
+     * @param afterScore {@link Hit#sortKey} of the previous page's last hit (a {@code real}), or null
+     */
+    @Transactional(readOnly = true)
+    public List<Hit> fuzzy(String query, Float afterScore, UUID afterId, int limit) {
+        final MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("q", query)
+                .addValue("limit", limit);
+        String after = "true";
+        if (afterScore != null) {
+            after = FUZZY_AFTER;
+            params.addValue("afterScore", afterScore).addValue("afterId", afterId);
+        }
+        return jdbc.query(FUZZY_SQL.formatted(after), params, HIT);
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,308 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-partition {@link VersionIndex} of the versions committed to {@code read.customers_view}, used by
+ * {@link CustomerViewRepository} to drop stale and duplicate events (replays, redeliveries) without a read.
+ * <p>
+ * An entry is a lower bound of the stored version: it is only raised from committed {@link CustomerViewsChanged}
+ * events (or the warm-up scan) and stored versions only grow, so an event at or below it is stale. Deletes
+ * remove the entry, since a deleted row no longer rejects anything. A missing entry just means "ask the database".
+ * <p>
+ * Indexes exist for the partitions assigned to this instance's main consumers (record, batch and parallel modes):
+ * created on assignment and dropped on revocation. Each one is guarded by its own monitor, as the retry consumer
+ * and parallel lanes commit changes for the same partition.
+ * <p>
+ * With {@code warm-up} a new index is first filled from {@code read.customers_view} on a background thread and
+ * only installed when the scan is done (the partition's lookups fall back to the database until then); the
+ * consumer thread never waits for it. Assignments arriving close together (one per listener container) share one
+ * scan. Commits during the scan are applied to the pending indexes too, and ids deleted meanwhile are dropped
+ * before installing, so a row the scan read before its delete cannot come back.
+ * <p>
+ * Metrics: {@code projection.version.index.skipped}, {@code projection.version.index.entries},
+ * {@code projection.version.index.bytes}.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("${projection.version-index.enabled:true} and '${projection.listener.mode:record}' != 'local'")
+public class CustomerVersionIndex {
+
+    private final VersionIndexProperties props;
+    private final DataSource dataSource;
+    private final KafkaAdmin kafkaAdmin;
+    private final Counter skipped;
+
+    /**
+     * By partition number; replaced (never mutated) on assignment changes, so readers need no lock to find one.
+     */
+    private volatile VersionIndex[] byPartition = new VersionIndex[0];
+
+    /**
+     * Delay before a warm-up scan starts, so the assignments of all containers of a rebalance share it.
+     */
+    private static final long WARM_UP_DELAY_MILLIS = 1_000;
+
+    private final ScheduledExecutorService warmer =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("projection-version-index-warm-up").daemon().factory());
+
+    // guarded by this: indexes being warmed up (by partition, built for pendingCount partitions) and ids deleted
+    // in the meantime
+    private final Map<Integer, VersionIndex> pending = new HashMap<>();
+    private final Set<UUID> deletedWhileWarming = new HashSet<>();
+    private int pendingCount;
+    // read without the lock by onCommitted, to skip it when nothing is pending
+    private volatile boolean warmUpScheduled;
+
+    public CustomerVersionIndex(VersionIndexProperties props, DataSource dataSource, KafkaAdmin kafkaAdmin,
+                                MeterRegistry registry) {
+        this.props = props;
+        this.dataSource = dataSource;
+        this.kafkaAdmin = kafkaAdmin;
+        this.skipped = Counter.builder("projection.version.index.skipped")
+                .description("Events dropped as stale by the in-memory version index")
+                .register(registry);
+        Gauge.builder("projection.version.index.entries", this, CustomerVersionIndex::entries)
+                .description("Aggregates held by the version index")
+                .register(registry);
+        Gauge.builder("projection.version.index.bytes", this, CustomerVersionIndex::bytes)
+                .description("Memory held by the version index")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * @return true when the stored row is known to be at {@code version} or newer
+     */
+    public boolean isStale(UUID id, long version) {
+        final VersionIndex index = indexOf(id);
+        if (index == null) return false;
+        final long stored;
+        synchronized (index) {
+            stored = index.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+        if (version <= stored) {
+            skipped.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommitted(CustomerViewsChanged event) {
+        for (CustomerViewsChanged.Change c : event.changes()) {
+            apply(indexOf(c.id()), c);
+        }
+        if (!warmUpScheduled) return;
+        synchronized (this) {
+            for (CustomerViewsChanged.Change c : event.changes()) {
+                final VersionIndex index = pending.get(CustomerTopics.partitionOf(c.id(), pendingCount));
+                if (index == null) continue;
+                apply(index, c);
+                if (c.deleted()) deletedWhileWarming.add(c.id());
+            }
+        }
+    }
+
+    private static void apply(VersionIndex index, CustomerViewsChanged.Change c) {
+        if (index == null) return;
+        synchronized (index) {
+            if (c.deleted()) {
+                index.remove(c.id().getMostSignificantBits(), c.id().getLeastSignificantBits());
+            } else {
+                index.raise(c.id().getMostSignificantBits(), c.id().getLeastSignificantBits(), c.version());
+            }
+        }
+    }
+
+    /**
+     * Call from the consumer's {@code onPartitionsAssigned} (before any record of those partitions is applied).
+     * Returns at once; with warm-up the partitions are indexed when their scan completes.
+     */
+    public void assigned(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return;
+        final int count = partitionCount();
+        final Map<Integer, VersionIndex> fresh = new HashMap<>();
+        for (TopicPartition tp : partitions) {
+            fresh.put(tp.partition(), new VersionIndex(props.maxEntriesPerPartition(), props.offHeap()));
+        }
+        synchronized (this) {
+            // an assignment replaces whatever this instance had for the partition, installed or pending
+            uninstall(fresh.keySet());
+            if (!props.warmUp()) {
+                install(fresh, count);
+                return;
+            }
+            if (pendingCount != count) {
+                pending.clear();
+                pendingCount = count;
+            }
+            pending.putAll(fresh);
+            if (!warmUpScheduled) {
+                warmUpScheduled = true;
+                warmer.schedule(this::warmUp, WARM_UP_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void revoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) return;
+        final Set<Integer> numbers = new HashSet<>();
+        partitions.forEach(tp -> numbers.add(tp.partition()));
+        synchronized (this) {
+            uninstall(numbers);
+        }
+    }
+
+    // callers hold this
+    private void install(Map<Integer, VersionIndex> indexes, int count) {
+        // a changed partition count remaps every id, so indexes built for the old count are dropped
+        final VersionIndex[] current = byPartition.length == count ? byPartition.clone() : new VersionIndex[count];
+        indexes.forEach((partition, index) -> current[partition] = index);
+        byPartition = current;
+    }
+
+    // callers hold this
+    private void uninstall(Set<Integer> partitions) {
+        final VersionIndex[] current = byPartition.clone();
+        for (int partition : partitions) {
+            if (partition < current.length) current[partition] = null;
+            pending.remove(partition);
+        }
+        byPartition = current;
+    }
+
+    private VersionIndex indexOf(UUID id) {
+        final VersionIndex[] indexes = byPartition;
+        return indexes.length == 0 ? null : indexes[CustomerTopics.partitionOf(id, indexes.length)];
+    }
+
+    /**
+     * One scan for every partition pending at its start; partitions assigned during the scan get the next one.
+     */
+    private void warmUp() {
+        final Map<Integer, VersionIndex> batch;
+        final int count;
+        synchronized (this) {
+            batch = new HashMap<>(pending);
+            count = pendingCount;
+        }
+        final VersionIndex[] fresh = new VersionIndex[count];
+        batch.forEach((partition, index) -> fresh[partition] = index);
+        final long t0 = System.nanoTime();
+        try {
+            final long rows = scan(fresh);
+            log.info("Version index warmed up for partitions {} with {} aggregates in {} ms",
+                    batch.keySet(), rows, (System.nanoTime() - t0) / 1_000_000);
+        } catch (SQLException | RuntimeException e) {
+            // the index only saves reads, and whatever was loaded is still committed state: keep it
+            log.warn("Version index warm-up failed for partitions {}; the rest is learned from new commits",
+                    batch.keySet(), e);
+        }
+        synchronized (this) {
+            final Map<Integer, VersionIndex> ready = new HashMap<>();
+            batch.forEach((partition, index) -> {
+                // still pending with this very index: not revoked or reassigned during the scan
+                if (pendingCount == count && pending.remove(partition, index)) ready.put(partition, index);
+            });
+            for (UUID id : deletedWhileWarming) {
+                final VersionIndex index = ready.get(CustomerTopics.partitionOf(id, count));
+                if (index == null) continue;
+                synchronized (index) {
+                    index.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+                }
+            }
+            if (pending.isEmpty()) deletedWhileWarming.clear();
+            install(ready, count);
+            if (pending.isEmpty()) {
+                warmUpScheduled = false;
+            } else {
+                warmer.execute(this::warmUp);
+            }
+        }
+    }
+
+    private long scan(VersionIndex[] fresh) throws SQLException {
+        long rows = 0;
+        try (Connection con = dataSource.getConnection()) {
+            // pgjdbc only streams with a cursor inside a transaction and with a fetch size
+            con.setAutoCommit(false);
+            con.setReadOnly(true);
+            try (PreparedStatement ps = con.prepareStatement("select id, version from read.customers_view")) {
+                ps.setFetchSize(10_000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        final UUID id = rs.getObject(1, UUID.class);
+                        final VersionIndex index = fresh[CustomerTopics.partitionOf(id, fresh.length)];
+                        if (index == null) continue;
+                        synchronized (index) {
+                            if (index.raise(id.getMostSignificantBits(), id.getLeastSignificantBits(), rs.getLong(2))) {
+                                rows++;
+                            }
+                        }
+                    }
+                }
+            } finally {
+                con.rollback();
+            }
+        }
+        return rows;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        warmer.shutdownNow();
+    }
+
+    private int partitionCount() {
+        return kafkaAdmin.describeTopics(CustomerTopics.EVENTS).get(CustomerTopics.EVENTS).partitions().size();
+    }
+
+    private double entries() {
+        long n = 0;
+        for (VersionIndex index : byPartition) {
+            if (index == null) continue;
+            synchronized (index) {
+                n += index.size();
+            }
+        }
+        return n;
+    }
+
+    private double bytes() {
+        long n = 0;
+        for (VersionIndex index : byPartition) {
+            if (index == null) continue;
+            synchronized (index) {
+                n += index.capacityBytes();
+            }
+        }
+        return n;
+    }
+}
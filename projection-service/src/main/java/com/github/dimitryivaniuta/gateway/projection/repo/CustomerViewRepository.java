@@ -1,18 +1,27 @@
 package com.github.dimitryivaniuta.gateway.projection.repo;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
 import com.github.dimitryivaniuta.gateway.projection.model.CustomerView;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import static com.github.dimitryivaniuta.gateway.projection.repo.EventPayloads.isKnownType;
+import static com.github.dimitryivaniuta.gateway.projection.repo.EventPayloads.textOrNull;
+
 /**
  * Read-model projector repository.
  * Applies domain events (create/update/delete) to the denormalized view table.
@@ -22,18 +31,60 @@ import java.util.UUID;
  * - We tolerate out-of-order arrival by ignoring stale versions.
  * - For gaps (version > current+1), we still upsert with the event's data and log a warning;
  * upstream ordering is per-partition, so gaps usually indicate missed older events or a new projector.
+ * A jump over updates the publisher coalesced away ({@link CustomerEventEnvelope#coalescedAfter}) is expected
+ * and applied as a normal event.
+ * - {@link #applyBatch(List)} keeps the same gating but pushes it into SQL (set-based upsert + bulk delete).
+ * - Every applying transaction publishes {@link CustomerViewsChanged} for after-commit listeners.
+ * - The {@link ConsumedOffsets} overloads also store the consumer position in the same transaction
+ * ({@link ProjectionOffsetRepository}), stale and unknown events included.
+ * - With {@link CustomerVersionIndex}, events at or below a version known to be committed are dropped before any
+ * read; the others cost one {@code em.find}, shared with the handlers.
  */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class CustomerViewRepository {   // <-- PUBLIC fixes your visibility/compile error
 
+    private static final String UPSERT_SQL = """
+            insert into read.customers_view as cv (id, name, email, version)
+            select * from unnest(?::uuid[], ?::varchar[], ?::varchar[], ?::bigint[])
+            on conflict (id) do update
+               set name = excluded.name,
+                   email = excluded.email,
+                   version = excluded.version
+             where cv.version < excluded.version
+            returning cv.id
+            """;
+
+    private static final String DELETE_SQL = """
+            delete from read.customers_view cv
+             using unnest(?::uuid[], ?::bigint[]) as d(id, version)
+             where cv.id = d.id
+               and cv.version < d.version
+            returning cv.id
+            """;
+
     @PersistenceContext
     private final EntityManager em;
 
+    private final JdbcTemplate jdbc;
+
+    private final ApplicationEventPublisher events;
+
+    private final ProjectionOffsetRepository offsets;
+
+    private final ObjectProvider<CustomerVersionIndex> versionIndex;
+
     @Transactional
-    public void applyEvent(CustomerEventEnvelope e) {
+    public ApplyOutcome applyEvent(CustomerEventEnvelope e) {
         final UUID id = UUID.fromString(e.aggregateId());
+        final CustomerVersionIndex index = versionIndex.getIfAvailable();
+        if (index != null && index.isStale(id, e.version())) {
+            if (log.isTraceEnabled()) {
+                log.trace("Ignore stale event {} v{} for {} (version index)", e.eventType(), e.version(), id);
+            }
+            return ApplyOutcome.STALE;
+        }
         CustomerView current = em.find(CustomerView.class, id);
         long currentVersion = current == null ? -1L : current.getVersion();
 
@@ -42,39 +93,187 @@ public class CustomerViewRepository {   // <-- PUBLIC fixes your visibility/comp
             if (log.isTraceEnabled()) {
                 log.trace("Ignore stale event {} v{} for {} (stored v{})", e.eventType(), e.version(), id, currentVersion);
             }
-            return;
+            return ApplyOutcome.STALE;
         }
 
-        // Optional gap warning
-        if (currentVersion >= 0 && e.version() > currentVersion + 1) {
+        // Optional gap warning; coalesced updates jump on purpose
+        final boolean jump = currentVersion >= 0 && e.version() > currentVersion + 1;
+        final boolean gap = jump && !e.coalescedAfter(currentVersion);
+        if (gap) {
             log.warn("Version gap for {}: incoming v{} > stored v{} + 1 (applying anyway)",
                     id, e.version(), currentVersion);
+        } else if (jump && log.isDebugEnabled()) {
+            log.debug("Coalesced update for {}: v{} -> v{}", id, currentVersion, e.version());
         }
 
         switch (e.eventType()) {
-            case "CustomerCreated" -> applyCreateOrUpsert(id, e);
-            case "CustomerUpdated" -> applyUpdateOrUpsert(id, e);
+            case "CustomerCreated" -> applyCreateOrUpsert(current, id, e);
+            case "CustomerUpdated" -> applyUpdateOrUpsert(current, id, e);
             case "CustomerDeleted" -> applyDeleteIfExists(current);
             default -> {
                 log.warn("Unknown eventType='{}' for aggregate={}; ignoring.", e.eventType(), id);
-                return;
+                return ApplyOutcome.UNKNOWN;
             }
         }
+        events.publishEvent(new CustomerViewsChanged(List.of(
+                new CustomerViewsChanged.Change(id, e.version(), "CustomerDeleted".equals(e.eventType())))));
 
         // At this point, the entity state in the persistence context is updated.
         // Flush is handled by transaction boundaries; no explicit em.flush() required.
+        return gap ? ApplyOutcome.GAP : ApplyOutcome.APPLIED;
+    }
+
+    @Transactional
+    public ApplyOutcome applyEvent(CustomerEventEnvelope e, ConsumedOffsets consumed) {
+        final ApplyOutcome outcome = applyEvent(e);
+        offsets.store(consumed);
+        return outcome;
+    }
+
+    /**
+     * Applies a whole poll in one transaction.
+     * <p>
+     * Events are collapsed per aggregate to the highest version (payloads carry full state), then written with
+     * one multi-row {@code INSERT ... ON CONFLICT DO UPDATE ... WHERE version < excluded.version} and one bulk
+     * delete, so stale/duplicate events are still ignored - just by the database instead of an {@code em.find}.
+     * Aggregates whose latest event is partial (missing name/email) cannot be expressed as a blind upsert and
+     * fall back to {@link #applyEvent} in arrival order, inside the same transaction.
+     * <p>
+     * Version-gap warnings are not emitted on this path (it never reads the stored version). Both statements return
+     * the rows they actually wrote, so the outcome lists only events that changed the view.
+     */
+    @Transactional
+    public BatchOutcome applyBatch(List<CustomerEventEnvelope> events) {
+        final Map<UUID, CustomerEventEnvelope> latest = new LinkedHashMap<>();
+        final Map<UUID, List<CustomerEventEnvelope>> partial = new LinkedHashMap<>();
+        final CustomerVersionIndex index = versionIndex.getIfAvailable();
+
+        for (CustomerEventEnvelope e : events) {
+            if (!isKnownType(e.eventType())) {
+                log.warn("Unknown eventType='{}' for aggregate={}; ignoring.", e.eventType(), e.aggregateId());
+                continue;
+            }
+            final UUID id = UUID.fromString(e.aggregateId());
+            if (index != null && index.isStale(id, e.version())) {
+                continue; // known stale: kept out of the statements altogether
+            }
+            partial.computeIfAbsent(id, k -> new ArrayList<>()).add(e);
+            latest.merge(id, e, (prev, next) -> next.version() > prev.version() ? next : prev);
+        }
+
+        final List<UUID> upsertIds = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<String> emails = new ArrayList<>();
+        final List<Long> upsertVersions = new ArrayList<>();
+        final List<UUID> deleteIds = new ArrayList<>();
+        final List<Long> deleteVersions = new ArrayList<>();
+
+        for (Map.Entry<UUID, CustomerEventEnvelope> entry : latest.entrySet()) {
+            final UUID id = entry.getKey();
+            final CustomerEventEnvelope e = entry.getValue();
+            if ("CustomerDeleted".equals(e.eventType())) {
+                deleteIds.add(id);
+                deleteVersions.add(e.version());
+                partial.remove(id);
+                continue;
+            }
+            final String name = textOrNull(e.payload(), "name");
+            final String email = textOrNull(e.payload(), "email");
+            if (name == null || email == null) {
+                continue; // stays in 'partial' -> per-event path
+            }
+            upsertIds.add(id);
+            names.add(name);
+            emails.add(email);
+            upsertVersions.add(e.version());
+            partial.remove(id);
+        }
+
+        final List<CustomerEventEnvelope> applied = new ArrayList<>(latest.size());
+        if (!deleteIds.isEmpty()) {
+            jdbc.query(con -> {
+                var ps = con.prepareStatement(DELETE_SQL);
+                ps.setArray(1, con.createArrayOf("uuid", deleteIds.toArray()));
+                ps.setArray(2, con.createArrayOf("bigint", deleteVersions.toArray()));
+                return ps;
+            }, rs -> {
+                applied.add(latest.get(rs.getObject(1, UUID.class)));
+            });
+        }
+        if (!upsertIds.isEmpty()) {
+            jdbc.query(con -> {
+                var ps = con.prepareStatement(UPSERT_SQL);
+                ps.setArray(1, con.createArrayOf("uuid", upsertIds.toArray()));
+                ps.setArray(2, con.createArrayOf("varchar", names.toArray()));
+                ps.setArray(3, con.createArrayOf("varchar", emails.toArray()));
+                ps.setArray(4, con.createArrayOf("bigint", upsertVersions.toArray()));
+                return ps;
+            }, rs -> {
+                applied.add(latest.get(rs.getObject(1, UUID.class)));
+            });
+        }
+        partial.values().forEach(list -> list.forEach(e -> {
+            if (applyEvent(e).changed()) applied.add(e);
+        }));
+
+        final List<CustomerViewsChanged.Change> changes = new ArrayList<>(upsertIds.size() + deleteIds.size());
+        for (int i = 0; i < upsertIds.size(); i++) {
+            changes.add(new CustomerViewsChanged.Change(upsertIds.get(i), upsertVersions.get(i), false));
+        }
+        for (int i = 0; i < deleteIds.size(); i++) {
+            changes.add(new CustomerViewsChanged.Change(deleteIds.get(i), deleteVersions.get(i), true));
+        }
+        if (!changes.isEmpty()) {
+            events.publishEvent(new CustomerViewsChanged(changes));
+        }
+
+        return new BatchOutcome(latest.size(), applied);
+    }
+
+    @Transactional
+    public BatchOutcome applyBatch(List<CustomerEventEnvelope> events, ConsumedOffsets consumed) {
+        final BatchOutcome outcome = applyBatch(events);
+        offsets.store(consumed);
+        return outcome;
     }
 
     /* =========================
-       Handlers
+       Queries
        ========================= */
 
-    private void applyCreateOrUpsert(UUID id, CustomerEventEnvelope e) {
-        CustomerView cv = em.find(CustomerView.class, id);
-        final ObjectNode p = asObjectNode(e.payload());
+    @Transactional(readOnly = true)
+    public Optional<CustomerView> findById(UUID id) {
+        return Optional.ofNullable(em.find(CustomerView.class, id));
+    }
 
-        final String name = textOrNull(p, "name");
-        final String email = textOrNull(p, "email");
+    @Transactional(readOnly = true)
+    public Optional<CustomerView> findByEmail(String email) {
+        return em.createQuery("select v from CustomerView v where v.email = :email", CustomerView.class)
+                .setParameter("email", email)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Keyset page ordered by id: rows strictly after {@code after} (or from the start when null).
+     * Uses the primary key index only; no OFFSET scan regardless of page depth.
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerView> findPageAfter(UUID after, int limit) {
+        var q = after == null
+                ? em.createQuery("select v from CustomerView v order by v.id", CustomerView.class)
+                : em.createQuery("select v from CustomerView v where v.id > :after order by v.id", CustomerView.class)
+                .setParameter("after", after);
+        return q.setMaxResults(limit).getResultList();
+    }
+
+    /* =========================
+       Handlers
+       ========================= */
+
+    private void applyCreateOrUpsert(CustomerView cv, UUID id, CustomerEventEnvelope e) {
+        final String name = textOrNull(e.payload(), "name");
+        final String email = textOrNull(e.payload(), "email");
 
         if (cv == null) {
             cv = CustomerView.create(id, nonNull(name, "name", e), nonNull(email, "email", e), e.version());
@@ -86,11 +285,9 @@ public class CustomerViewRepository {   // <-- PUBLIC fixes your visibility/comp
         }
     }
 
-    private void applyUpdateOrUpsert(UUID id, CustomerEventEnvelope e) {
-        CustomerView cv = em.find(CustomerView.class, id);
-        final ObjectNode p = asObjectNode(e.payload());
-        final String name = textOrNull(p, "name");
-        final String email = textOrNull(p, "email");
+    private void applyUpdateOrUpsert(CustomerView cv, UUID id, CustomerEventEnvelope e) {
+        final String name = textOrNull(e.payload(), "name");
+        final String email = textOrNull(e.payload(), "email");
 
         if (cv == null) {
             // Upsert behavior: create from update if missing (use what we have)
@@ -112,21 +309,9 @@ public class CustomerViewRepository {   // <-- PUBLIC fixes your visibility/comp
     }
 
     /* =========================
-       JSON helpers
+       Field helpers
        ========================= */
 
-    private static ObjectNode asObjectNode(Object payload) {
-        if (payload instanceof ObjectNode on) return on;
-        if (payload instanceof JsonNode jn && jn.isObject()) return (ObjectNode) jn;
-        throw new IllegalArgumentException("Payload must be a JSON object; was: " +
-                (payload == null ? "null" : payload.getClass().getName()));
-    }
-
-    private static String textOrNull(ObjectNode p, String field) {
-        JsonNode n = p.get(field);
-        return (n != null && !n.isNull()) ? n.asText() : null;
-    }
-
     private static String nonNull(String v, String field, CustomerEventEnvelope e) {
         if (v == null) {
             throw new IllegalArgumentException("Missing required field '" + field +
@@ -0,0 +1,19 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published by {@link CustomerViewRepository} inside the projecting transaction; consume it with
+ * {@code @TransactionalEventListener} to act only once the change is committed (cache invalidation, waiters).
+ * <p>
+ * A change means "the stored row for {@code id} is now at {@code version} or newer" (or gone, if deleted):
+ * set-based batches report every candidate, including ones the SQL version gate skipped as stale.
+ *
+ * @param changes one entry per touched aggregate
+ */
+public record CustomerViewsChanged(List<Change> changes) {
+
+    public record Change(UUID id, long version, boolean deleted) {
+    }
+}
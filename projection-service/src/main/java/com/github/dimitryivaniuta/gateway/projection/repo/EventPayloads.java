@@ -0,0 +1,46 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerCreated;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerUpdated;
+
+import java.util.Map;
+
+/**
+ * Payload access shared by the projectors ({@link CustomerViewRepository} and the local store).
+ */
+public final class EventPayloads {
+
+    private EventPayloads() {
+    }
+
+    public static boolean isKnownType(String eventType) {
+        return "CustomerCreated".equals(eventType)
+                || "CustomerUpdated".equals(eventType)
+                || "CustomerDeleted".equals(eventType);
+    }
+
+    /**
+     * Reads a text field from the payload. Both wire codecs stream the known payloads into typed records;
+     * {@code Map}/{@code JsonNode} payloads are still accepted for envelopes built elsewhere (e.g. benchmarks).
+     */
+    public static String textOrNull(Object payload, String field) {
+        if (payload instanceof CustomerCreated c) {
+            return "name".equals(field) ? c.name() : "email".equals(field) ? c.email() : null;
+        }
+        if (payload instanceof CustomerUpdated u) {
+            return "name".equals(field) ? u.name() : "email".equals(field) ? u.email() : null;
+        }
+        if (payload instanceof ObjectNode p) {
+            JsonNode n = p.get(field);
+            return (n != null && !n.isNull()) ? n.asText() : null;
+        }
+        if (payload instanceof Map<?, ?> m) {
+            Object v = m.get(field);
+            return v != null ? v.toString() : null;
+        }
+        throw new IllegalArgumentException("Payload must be a JSON object; was: " +
+                (payload == null ? "null" : payload.getClass().getName()));
+    }
+}
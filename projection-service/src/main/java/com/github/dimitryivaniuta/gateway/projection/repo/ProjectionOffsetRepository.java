@@ -0,0 +1,66 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code read.projection_offsets}: consumer positions stored with the read model.
+ * <p>
+ * {@link #store} joins the caller's transaction (the one that applied the events), so the view and the position
+ * commit or roll back together.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProjectionOffsetRepository {
+
+    // never moves a position backwards: a redelivered, already-stored batch leaves it alone
+    private static final String STORE_SQL = """
+            insert into read.projection_offsets as po (consumer_group, topic, partition, next_offset)
+            select ?, t, p, o from unnest(?::varchar[], ?::int[], ?::bigint[]) as u(t, p, o)
+            on conflict (consumer_group, topic, partition) do update
+               set next_offset = excluded.next_offset,
+                   updated_at = now()
+             where po.next_offset < excluded.next_offset
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    public void store(ConsumedOffsets offsets) {
+        if (offsets.nextOffsets().isEmpty()) return;
+        final int n = offsets.nextOffsets().size();
+        final Object[] topics = new Object[n];
+        final Object[] partitions = new Object[n];
+        final Object[] next = new Object[n];
+        int i = 0;
+        for (Map.Entry<TopicPartition, Long> e : offsets.nextOffsets().entrySet()) {
+            topics[i] = e.getKey().topic();
+            partitions[i] = e.getKey().partition();
+            next[i] = e.getValue();
+            i++;
+        }
+        jdbc.update(con -> {
+            var ps = con.prepareStatement(STORE_SQL);
+            ps.setString(1, offsets.groupId());
+            ps.setArray(2, con.createArrayOf("varchar", topics));
+            ps.setArray(3, con.createArrayOf("int4", partitions));
+            ps.setArray(4, con.createArrayOf("bigint", next));
+            return ps;
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Map<TopicPartition, Long> load(String groupId) {
+        final Map<TopicPartition, Long> out = new HashMap<>();
+        jdbc.query("select topic, partition, next_offset from read.projection_offsets where consumer_group = ?",
+                rs -> {
+                    out.put(new TopicPartition(rs.getString(1), rs.getInt(2)), rs.getLong(3));
+                }, groupId);
+        return out;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@code read.retry_parking}: aggregates with an event in the retry topic.
+ * <p>
+ * Rows are touched with single-statement upserts/updates, so the main listener extending a row and the retry
+ * listener releasing it are serialized by the row lock; callers run them in the transaction that also sends
+ * the record to the retry topic.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RetryParkingRepository {
+
+    private static final String EXTEND_BATCH_SQL = """
+            update read.retry_parking p
+               set last_version = greatest(p.last_version, v.version)
+              from unnest(?::uuid[], ?::bigint[]) as v(id, version)
+             where p.aggregate_id = v.id
+            returning p.aggregate_id
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    /**
+     * Parks an aggregate behind its failed event {@code version} (or extends an existing parking).
+     */
+    public void park(UUID id, long version) {
+        jdbc.update("""
+                insert into read.retry_parking (aggregate_id, last_version) values (?, ?)
+                on conflict (aggregate_id) do update
+                   set last_version = greatest(read.retry_parking.last_version, excluded.last_version)
+                """, id, version);
+    }
+
+    /**
+     * @return true if the aggregate is parked; {@code version} is then recorded as its newest retry-topic event
+     */
+    public boolean extendIfParked(UUID id, long version) {
+        return jdbc.update("update read.retry_parking set last_version = greatest(last_version, ?) where aggregate_id = ?",
+                version, id) == 1;
+    }
+
+    /**
+     * Set variant of {@link #extendIfParked(UUID, long)}.
+     *
+     * @param latest newest version per aggregate
+     * @return the parked aggregates among them
+     */
+    public Set<UUID> extendIfParked(Map<UUID, Long> latest) {
+        final Set<UUID> parked = new HashSet<>();
+        if (latest.isEmpty()) return parked;
+        jdbc.query(con -> {
+            var ps = con.prepareStatement(EXTEND_BATCH_SQL);
+            ps.setArray(1, con.createArrayOf("uuid", latest.keySet().toArray()));
+            ps.setArray(2, con.createArrayOf("bigint", latest.values().toArray()));
+            return ps;
+        }, rs -> {
+            parked.add(rs.getObject(1, UUID.class));
+        });
+        return parked;
+    }
+
+    /**
+     * Unparks the aggregate once the retry listener has finished its newest parked version.
+     */
+    public void release(UUID id, long version) {
+        jdbc.update("delete from read.retry_parking where aggregate_id = ? and last_version <= ?", id, version);
+    }
+
+    /**
+     * All parked aggregates; the table only holds aggregates whose apply failed, so it stays small.
+     */
+    public List<UUID> parkedIds() {
+        return jdbc.queryForList("select aggregate_id from read.retry_parking", UUID.class);
+    }
+}
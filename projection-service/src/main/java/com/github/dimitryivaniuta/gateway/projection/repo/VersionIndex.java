@@ -0,0 +1,149 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Open-addressing hash map from a UUID (as its two {@code long} halves) to a {@code long} version.
+ * <p>
+ * Linear probing over one flat {@link LongBuffer} of {@code (msb, lsb, version)} slots, so lookups and updates
+ * allocate nothing and there are no per-entry objects for the GC to trace. The buffer is a {@code long[]} or,
+ * with {@code offHeap}, a direct buffer outside the Java heap. A slot is free when its version is
+ * {@link #ABSENT}; stored versions are never negative. Removal shifts the rest of the probe run back, so there
+ * are no tombstones.
+ * <p>
+ * Grows by doubling at 50% load up to {@code maxEntries}; past that, new keys are refused (existing ones still
+ * update). Not thread-safe.
+ */
+public final class VersionIndex {
+
+    public static final long ABSENT = -1L;
+
+    /**
+     * Largest slot count whose direct buffer still fits one {@link ByteBuffer} (24 bytes per slot).
+     */
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int STRIDE = 3;
+
+    private final boolean offHeap;
+    private final int maxEntries;
+    private LongBuffer slots;
+    private int mask;
+    private int size;
+
+    public VersionIndex(int maxEntries, boolean offHeap) {
+        if (maxEntries < 1 || maxEntries > MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("maxEntries must be within 1.." + MAX_CAPACITY / 2);
+        }
+        this.maxEntries = maxEntries;
+        this.offHeap = offHeap;
+        allocate(Math.min(1024, MAX_CAPACITY));
+    }
+
+    /**
+     * @return the stored version, or {@link #ABSENT}
+     */
+    public long get(long msb, long lsb) {
+        for (int i = slotOf(msb, lsb); ; i = (i + 1) & mask) {
+            final int base = i * STRIDE;
+            final long v = slots.get(base + 2);
+            if (v == ABSENT) return ABSENT;
+            if (slots.get(base) == msb && slots.get(base + 1) == lsb) return v;
+        }
+    }
+
+    /**
+     * Stores {@code version} unless a higher one is already stored.
+     *
+     * @return false when the key is new and the index is full
+     */
+    public boolean raise(long msb, long lsb, long version) {
+        if (version < 0) return true;
+        for (int i = slotOf(msb, lsb); ; i = (i + 1) & mask) {
+            final int base = i * STRIDE;
+            final long v = slots.get(base + 2);
+            if (v == ABSENT) {
+                if (size >= maxEntries) return false;
+                if (size + 1 > (mask + 1) >> 1) {
+                    grow();
+                    return raise(msb, lsb, version);
+                }
+                slots.put(base, msb).put(base + 1, lsb).put(base + 2, version);
+                size++;
+                return true;
+            }
+            if (slots.get(base) == msb && slots.get(base + 1) == lsb) {
+                if (version > v) slots.put(base + 2, version);
+                return true;
+            }
+        }
+    }
+
+    public void remove(long msb, long lsb) {
+        int hole = slotOf(msb, lsb);
+        for (; ; hole = (hole + 1) & mask) {
+            final int base = hole * STRIDE;
+            if (slots.get(base + 2) == ABSENT) return;
+            if (slots.get(base) == msb && slots.get(base + 1) == lsb) break;
+        }
+        size--;
+        // backward shift: pull later entries of the run into the hole unless that would move them before home
+        for (int j = (hole + 1) & mask; ; j = (j + 1) & mask) {
+            final int base = j * STRIDE;
+            if (slots.get(base + 2) == ABSENT) break;
+            final int home = slotOf(slots.get(base), slots.get(base + 1));
+            final boolean between = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!between) {
+                final int dst = hole * STRIDE;
+                slots.put(dst, slots.get(base)).put(dst + 1, slots.get(base + 1)).put(dst + 2, slots.get(base + 2));
+                hole = j;
+            }
+        }
+        slots.put(hole * STRIDE + 2, ABSENT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long capacityBytes() {
+        return (long) (mask + 1) * STRIDE * Long.BYTES;
+    }
+
+    // package-private for the tests, which pick colliding keys with it
+    int slotOf(long msb, long lsb) {
+        // murmur3 fmix64: random UUIDs are already uniform, but name-based or sequential ones are not
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void allocate(int capacity) {
+        final int longs = capacity * STRIDE;
+        slots = offHeap
+                ? ByteBuffer.allocateDirect(longs * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.wrap(new long[longs]);
+        for (int i = 2; i < longs; i += STRIDE) {
+            slots.put(i, ABSENT);
+        }
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void grow() {
+        final LongBuffer old = slots;
+        final int oldCapacity = mask + 1;
+        allocate(Math.min(oldCapacity << 1, MAX_CAPACITY));
+        for (int i = 0; i < oldCapacity; i++) {
+            final int base = i * STRIDE;
+            final long v = old.get(base + 2);
+            if (v != ABSENT) raise(old.get(base), old.get(base + 1), v);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * In-memory version index of the projector ({@code projection.version-index.*}).
+ *
+ * @param enabled                 skip stale events without reading {@code read.customers_view}
+ * @param maxEntriesPerPartition  aggregates remembered per assigned partition (48-96 bytes each: 24-byte slots
+ *                                kept at most half full); beyond it, new aggregates fall back to the database check
+ * @param offHeap                 keep the index in direct memory instead of the Java heap
+ * @param warmUp                  fill newly assigned partitions' indexes from {@code read.customers_view} in the
+ *                                background (one table scan per rebalance, shared by the instance's consumers)
+ *                                instead of learning them from applied events only
+ */
+@ConfigurationProperties(prefix = "projection.version-index")
+public record VersionIndexProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000000") int maxEntriesPerPartition,
+        @DefaultValue("false") boolean offHeap,
+        @DefaultValue("false") boolean warmUp
+) {
+    public VersionIndexProperties {
+        if (maxEntriesPerPartition < 1 || maxEntriesPerPartition > VersionIndex.MAX_CAPACITY / 2) {
+            throw new IllegalArgumentException("projection.version-index.max-entries-per-partition must be within 1.."
+                    + VersionIndex.MAX_CAPACITY / 2);
+        }
+    }
+}
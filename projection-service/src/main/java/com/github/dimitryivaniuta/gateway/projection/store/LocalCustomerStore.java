@@ -0,0 +1,494 @@
+package com.github.dimitryivaniuta.gateway.projection.store;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerEventEnvelope;
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.query.CustomerReadModel;
+import com.github.dimitryivaniuta.gateway.projection.repo.ApplyOutcome;
+import com.github.dimitryivaniuta.gateway.projection.repo.CustomerViewsChanged;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.DBOptions;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.dimitryivaniuta.gateway.projection.repo.EventPayloads.isKnownType;
+import static com.github.dimitryivaniuta.gateway.projection.repo.EventPayloads.textOrNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Customer view kept in an embedded RocksDB (LSM) store inside the service ({@code projection.listener.mode=local}),
+ * materialized straight from the compacted {@code customers.events.v1} topic.
+ * <p>
+ * Layout:
+ * <ul>
+ *   <li>column family {@code customers}: 16-byte big-endian UUID → {@code version | name | email}, tuned for
+ *   point lookups (hash index, bloom filters);</li>
+ *   <li>column family {@code checkpoints}: {@code topic-partition} → next offset to consume.</li>
+ * </ul>
+ * The view changes of a poll and its partition checkpoint are written in one atomic {@link WriteBatch}, so after a
+ * crash the store is always at a poll boundary and the listener resumes exactly from the checkpoint; the consumer
+ * group's committed offsets are not used for positioning. A restart only reopens the files; an empty directory
+ * (new host, lost volume) is bootstrapped from a snapshot of {@code write.customers} ({@link LocalStoreBootstrap},
+ * {@link #load}), since the topic only keeps a week of history.
+ * <p>
+ * Apply semantics are those of {@code CustomerViewRepository#applyEvent}: version gate, gap warning (not for
+ * coalesced updates), partial updates merged into the stored row, deletes remove the key.
+ * <p>
+ * Reads are only answered for partitions currently assigned to this instance that have caught up with the end of
+ * the partition as of their assignment ({@link #serves}); the rest of the keyspace may be stale here and is read
+ * from the Postgres sink instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "projection.listener", name = "mode", havingValue = "local")
+public class LocalCustomerStore {
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    private static final byte[] CUSTOMERS = "customers".getBytes(UTF_8);
+    private static final byte[] CHECKPOINTS = "checkpoints".getBytes(UTF_8);
+
+    private record Row(long version, String name, String email) {
+    }
+
+    private final DBOptions dbOptions;
+    private final ColumnFamilyOptions defaultOptions;
+    private final ColumnFamilyOptions customerOptions;
+    private final WriteOptions writeOptions;
+    private final RocksDB db;
+    private final List<ColumnFamilyHandle> handles = new ArrayList<>(3);
+    private final ColumnFamilyHandle customers;
+    private final ColumnFamilyHandle checkpoints;
+
+    private final Set<Integer> owned = ConcurrentHashMap.newKeySet();
+    /**
+     * Owned partitions still replaying, by partition: the end offset (LSO) they must reach before being served.
+     */
+    private final Map<Integer, Long> catchingUp = new ConcurrentHashMap<>();
+    private volatile int partitionCount;
+
+    private final Meter.MeterProvider<Counter> events;
+    private final Timer commitTimer;
+
+    public LocalCustomerStore(LocalStoreProperties props, MeterRegistry registry) throws IOException {
+        Files.createDirectories(props.directory());
+        this.dbOptions = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+        this.defaultOptions = new ColumnFamilyOptions();
+        this.customerOptions = new ColumnFamilyOptions().optimizeForPointLookup(props.blockCacheSize().toMegabytes());
+        // no fsync per poll: a lost WAL tail only moves the store (data and checkpoint together) back a few polls
+        this.writeOptions = new WriteOptions().setSync(false);
+        try {
+            this.db = RocksDB.open(dbOptions, props.directory().toAbsolutePath().toString(), List.of(
+                    new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultOptions),
+                    new ColumnFamilyDescriptor(CUSTOMERS, customerOptions),
+                    new ColumnFamilyDescriptor(CHECKPOINTS, defaultOptions)), handles);
+        } catch (RocksDBException e) {
+            closeOptions();
+            throw new IllegalStateException("Cannot open local store at " + props.directory().toAbsolutePath(), e);
+        }
+        this.customers = handles.get(1);
+        this.checkpoints = handles.get(2);
+        log.info("Local customer store opened at {} (~{} keys)", props.directory().toAbsolutePath(), estimatedKeys());
+
+        this.events = Counter.builder("projection.local.events")
+                .description("Events applied to the local store, by outcome")
+                .withRegistry(registry);
+        this.commitTimer = Timer.builder("projection.local.commit")
+                .description("Atomic write of one partition's poll (view changes + checkpoint)")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("projection.local.keys", this, LocalCustomerStore::estimatedKeys)
+                .description("Estimated customers in the local store")
+                .register(registry);
+        Gauge.builder("projection.local.catching.up", catchingUp, Map::size)
+                .description("Assigned partitions not served yet because they are still replaying")
+                .register(registry);
+    }
+
+    public Optional<CustomerReadModel> get(UUID id) {
+        final Row row = read(id);
+        return row == null ? Optional.empty() : Optional.of(new CustomerReadModel(id, row.name(), row.email(), row.version()));
+    }
+
+    /**
+     * @return the next offset to consume for {@code tp}, empty if this store never saw the partition
+     */
+    public OptionalLong checkpoint(TopicPartition tp) {
+        try {
+            final byte[] v = db.get(checkpoints, checkpointKey(tp));
+            return v == null ? OptionalLong.empty() : OptionalLong.of(ByteBuffer.wrap(v).getLong());
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot read checkpoint of " + tp, e);
+        }
+    }
+
+    /* =========================
+       Partition ownership
+       ========================= */
+
+    /**
+     * @param endOffsets per partition, the end offset (read_committed) at assignment; the partition is served once
+     *                   the consumer position reaches it ({@link #positionReached})
+     */
+    public void assigned(Collection<TopicPartition> partitions, int topicPartitionCount, Map<TopicPartition, Long> endOffsets) {
+        this.partitionCount = topicPartitionCount;
+        for (TopicPartition tp : partitions) {
+            // registered as catching up before it becomes owned, so it is never served in between
+            catchingUp.put(tp.partition(), endOffsets.getOrDefault(tp, Long.MAX_VALUE));
+            owned.add(tp.partition());
+            checkpoint(tp).ifPresent(next -> positionReached(tp, next));
+        }
+    }
+
+    public void revoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(tp -> {
+            owned.remove(tp.partition());
+            catchingUp.remove(tp.partition());
+        });
+    }
+
+    public boolean isCatchingUp(TopicPartition tp) {
+        return catchingUp.containsKey(tp.partition());
+    }
+
+    /**
+     * Reports the consumer position of {@code tp} (everything below it is committed to the store). Positions rather
+     * than checkpoints, because transaction markers at the end of a partition are never delivered as records.
+     */
+    public void positionReached(TopicPartition tp, long position) {
+        final Long target = catchingUp.get(tp.partition());
+        if (target != null && position >= target && catchingUp.remove(tp.partition(), target)) {
+            log.info("Local store caught up on {} at offset {}; serving it", tp, position);
+        }
+    }
+
+    /**
+     * Whether {@code id}'s partition is consumed by this instance and has caught up, i.e. whether {@link #get} is
+     * authoritative.
+     */
+    public boolean serves(UUID id) {
+        final int count = partitionCount;
+        if (count == 0) return false;
+        final int partition = CustomerTopics.partitionOf(id, count);
+        return owned.contains(partition) && !catchingUp.containsKey(partition);
+    }
+
+    /* =========================
+       Snapshot bootstrap
+       ========================= */
+
+    /**
+     * Starts loading a snapshot into the given partitions; their existing keys are removed first (left over from an
+     * interrupted load). Call before the partitions are consumed.
+     */
+    public Loader load(Collection<TopicPartition> partitions, int topicPartitionCount) {
+        final Set<Integer> targets = new HashSet<>();
+        partitions.forEach(tp -> targets.add(tp.partition()));
+        final Loader loader = new Loader(targets, topicPartitionCount);
+        try (RocksIterator it = db.newIterator(customers)) {
+            for (it.seekToFirst(); it.isValid(); it.next()) {
+                final ByteBuffer k = ByteBuffer.wrap(it.key());
+                if (targets.contains(CustomerTopics.partitionOf(new UUID(k.getLong(), k.getLong()), topicPartitionCount))) {
+                    loader.writes.delete(customers, it.key());
+                    loader.flushIfFull();
+                }
+            }
+        } catch (RocksDBException e) {
+            loader.close();
+            throw new IllegalStateException("Cannot clear partitions " + partitions + " before loading", e);
+        }
+        return loader;
+    }
+
+    /**
+     * Snapshot rows of some partitions, written in chunks; the checkpoints go last, so an interrupted load leaves
+     * the partitions without checkpoints and is started over.
+     */
+    public final class Loader implements AutoCloseable {
+
+        private static final int CHUNK = 10_000;
+
+        private final Set<Integer> partitions;
+        private final int topicPartitionCount;
+        private final WriteBatch writes = new WriteBatch();
+        private long rows;
+
+        private Loader(Set<Integer> partitions, int topicPartitionCount) {
+            this.partitions = partitions;
+            this.topicPartitionCount = topicPartitionCount;
+        }
+
+        /**
+         * Ignores rows of other partitions.
+         */
+        public void put(UUID id, String name, String email, long version) {
+            if (!partitions.contains(CustomerTopics.partitionOf(id, topicPartitionCount))) return;
+            try {
+                writes.put(customers, key(id), encode(new Row(version, name, email)));
+            } catch (RocksDBException e) {
+                throw new IllegalStateException("Cannot stage snapshot row " + id, e);
+            }
+            rows++;
+            flushIfFull();
+        }
+
+        /**
+         * @param nextOffsets per partition, the offset to consume from after the snapshot
+         * @return rows loaded
+         */
+        public long finish(Map<TopicPartition, Long> nextOffsets) {
+            try (WriteOptions synced = new WriteOptions().setSync(true)) {
+                for (Map.Entry<TopicPartition, Long> e : nextOffsets.entrySet()) {
+                    writes.put(checkpoints, checkpointKey(e.getKey()), ByteBuffer.allocate(Long.BYTES).putLong(e.getValue()).array());
+                }
+                db.write(synced, writes);
+                writes.clear();
+            } catch (RocksDBException e) {
+                throw new IllegalStateException("Cannot commit snapshot load", e);
+            }
+            return rows;
+        }
+
+        private void flushIfFull() {
+            if (writes.count() < CHUNK) return;
+            try {
+                db.write(writeOptions, writes);
+                writes.clear();
+            } catch (RocksDBException e) {
+                throw new IllegalStateException("Cannot write snapshot chunk", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            writes.close();
+        }
+    }
+
+    /* =========================
+       Writes
+       ========================= */
+
+    /**
+     * Starts an atomic write of consecutive records of one partition; call from that partition's consumer thread.
+     */
+    public Batch begin(TopicPartition tp) {
+        return new Batch(tp, checkpoint(tp).orElse(-1L));
+    }
+
+    /**
+     * Pending changes of one partition; reads inside the batch see its own earlier writes.
+     */
+    public final class Batch implements AutoCloseable {
+
+        private final TopicPartition tp;
+        private final long checkpoint;
+        private final WriteBatch writes = new WriteBatch();
+        private final Map<UUID, Optional<Row>> pending = new HashMap<>();
+        private final List<CustomerViewsChanged.Change> changes = new ArrayList<>();
+        private long next = -1;
+
+        private Batch(TopicPartition tp, long checkpoint) {
+            this.tp = tp;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Records below the checkpoint are already in the store (redelivery after an error or a rebalance).
+         */
+        public boolean alreadyApplied(long offset) {
+            return offset < checkpoint;
+        }
+
+        /**
+         * Moves the checkpoint past a record that carries nothing to apply (e.g. a null envelope).
+         */
+        public void skip(long offset) {
+            next = offset + 1;
+        }
+
+        /**
+         * @throws IllegalArgumentException for a create without name/email; nothing of this record is written
+         */
+        public ApplyOutcome apply(CustomerEventEnvelope e, long offset) {
+            final ApplyOutcome outcome = project(e);
+            next = offset + 1;
+            events.withTags("outcome", outcome.name().toLowerCase()).increment();
+            return outcome;
+        }
+
+        private ApplyOutcome project(CustomerEventEnvelope e) {
+            if (!isKnownType(e.eventType())) {
+                log.warn("Unknown eventType='{}' for aggregate={}; ignoring.", e.eventType(), e.aggregateId());
+                return ApplyOutcome.UNKNOWN;
+            }
+            final UUID id = UUID.fromString(e.aggregateId());
+            final Optional<Row> staged = pending.get(id);
+            final Row current = staged != null ? staged.orElse(null) : read(id);
+            final long currentVersion = current == null ? -1L : current.version();
+            if (e.version() <= currentVersion) {
+                return ApplyOutcome.STALE;
+            }
+            final boolean jump = currentVersion >= 0 && e.version() > currentVersion + 1;
+            final boolean gap = jump && !e.coalescedAfter(currentVersion);
+            if (gap) {
+                log.warn("Version gap for {}: incoming v{} > stored v{} + 1 (applying anyway)",
+                        id, e.version(), currentVersion);
+            } else if (jump && log.isDebugEnabled()) {
+                log.debug("Coalesced update for {}: v{} -> v{}", id, currentVersion, e.version());
+            }
+
+            final boolean deleted = "CustomerDeleted".equals(e.eventType());
+            try {
+                if (deleted) {
+                    writes.delete(customers, key(id));
+                    pending.put(id, Optional.empty());
+                } else {
+                    final Row row = merge(current, e);
+                    writes.put(customers, key(id), encode(row));
+                    pending.put(id, Optional.of(row));
+                }
+            } catch (RocksDBException ex) {
+                throw new IllegalStateException("Cannot stage change of " + id, ex);
+            }
+            changes.add(new CustomerViewsChanged.Change(id, e.version(), deleted));
+            return gap ? ApplyOutcome.GAP : ApplyOutcome.APPLIED;
+        }
+
+        /**
+         * Writes the staged changes together with the new checkpoint.
+         *
+         * @return the committed changes, for after-commit listeners
+         */
+        public List<CustomerViewsChanged.Change> commit() {
+            if (next < 0) return List.of();
+            final long t0 = System.nanoTime();
+            try {
+                writes.put(checkpoints, checkpointKey(tp), ByteBuffer.allocate(Long.BYTES).putLong(next).array());
+                db.write(writeOptions, writes);
+            } catch (RocksDBException e) {
+                throw new IllegalStateException("Cannot commit local store batch of " + tp, e);
+            } finally {
+                commitTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            }
+            return changes;
+        }
+
+        @Override
+        public void close() {
+            writes.close();
+        }
+    }
+
+    /* =========================
+       Encoding
+       ========================= */
+
+    private Row read(UUID id) {
+        try {
+            final byte[] v = db.get(customers, key(id));
+            return v == null ? null : decode(v);
+        } catch (RocksDBException e) {
+            throw new IllegalStateException("Cannot read " + id + " from local store", e);
+        }
+    }
+
+    private static Row merge(Row current, CustomerEventEnvelope e) {
+        final String name = textOrNull(e.payload(), "name");
+        final String email = textOrNull(e.payload(), "email");
+        if (current != null) {
+            return new Row(e.version(), name != null ? name : current.name(), email != null ? email : current.email());
+        }
+        if ("CustomerCreated".equals(e.eventType()) && (name == null || email == null)) {
+            throw new IllegalArgumentException("Missing required field '" + (name == null ? "name" : "email")
+                    + "' in event " + e.eventType() + " for aggregate " + e.aggregateId());
+        }
+        // update of an unknown aggregate: create from what we have, like the Postgres projector
+        return new Row(e.version(), name != null ? name : "(unknown)", email != null ? email : "(unknown@invalid)");
+    }
+
+    private static byte[] key(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] checkpointKey(TopicPartition tp) {
+        return tp.toString().getBytes(UTF_8);
+    }
+
+    private static byte[] encode(Row row) {
+        final byte[] name = row.name().getBytes(UTF_8);
+        final byte[] email = row.email().getBytes(UTF_8);
+        return ByteBuffer.allocate(Long.BYTES + Integer.BYTES + name.length + Integer.BYTES + email.length)
+                .putLong(row.version())
+                .putInt(name.length).put(name)
+                .putInt(email.length).put(email)
+                .array();
+    }
+
+    private static Row decode(byte[] value) {
+        final ByteBuffer buf = ByteBuffer.wrap(value);
+        final long version = buf.getLong();
+        final int nameLength = buf.getInt();
+        final String name = new String(value, buf.position(), nameLength, UTF_8);
+        buf.position(buf.position() + nameLength);
+        final int emailLength = buf.getInt();
+        return new Row(version, name, new String(value, buf.position(), emailLength, UTF_8));
+    }
+
+    private double estimatedKeys() {
+        try {
+            return db.getLongProperty(customers, "rocksdb.estimate-num-keys");
+        } catch (RocksDBException e) {
+            return Double.NaN;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        handles.forEach(ColumnFamilyHandle::close);
+        db.close();
+        closeOptions();
+    }
+
+    private void closeOptions() {
+        writeOptions.close();
+        customerOptions.close();
+        defaultOptions.close();
+        dbOptions.close();
+    }
+}
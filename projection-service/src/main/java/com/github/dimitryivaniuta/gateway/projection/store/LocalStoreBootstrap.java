@@ -0,0 +1,148 @@
+package com.github.dimitryivaniuta.gateway.projection.store;
+
+import com.github.dimitryivaniuta.gateway.common.event.CustomerTopics;
+import com.github.dimitryivaniuta.gateway.projection.rebuild.SnapshotRebuildProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsOptions;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.IsolationLevel;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills {@link LocalCustomerStore} partitions that have no checkpoint (new host, lost volume) from a snapshot of
+ * {@code write.customers} before the listener containers start ({@code projection.local.snapshot-bootstrap=true}).
+ * <p>
+ * Same ordering as {@code SnapshotRebuilder}: the partitions' end offsets (read_committed) are read first, then a
+ * {@code REPEATABLE READ} snapshot is streamed into the store, and those offsets become the checkpoints. Events
+ * between the offsets and the snapshot are replayed and dropped by the version gate. Replaying the topic from the
+ * beginning instead would miss every customer whose last event is older than its 7-day retention.
+ * <p>
+ * All partitions of the topic are loaded, not only the ones this instance will be assigned, so a later reassignment
+ * only has to catch up from the checkpoint. The source is {@code projection.rebuild.source-url} (blank = the
+ * projection's own datasource).
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${projection.listener.mode:record}' == 'local' and ${projection.local.snapshot-bootstrap:true}")
+public class LocalStoreBootstrap implements SmartLifecycle {
+
+    private static final String SNAPSHOT = "select id, name, email, version from write.customers";
+
+    private final LocalCustomerStore store;
+    private final DataSource dataSource;
+    private final SnapshotRebuildProperties source;
+    private final KafkaAdmin kafkaAdmin;
+
+    private volatile boolean running;
+
+    public LocalStoreBootstrap(LocalCustomerStore store, DataSource dataSource, SnapshotRebuildProperties source,
+                               KafkaAdmin kafkaAdmin) {
+        this.store = store;
+        this.dataSource = dataSource;
+        this.source = source;
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        try {
+            bootstrap();
+        } catch (Exception e) {
+            throw new IllegalStateException("Snapshot bootstrap of the local customer store failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Before the listener containers ({@link AbstractMessageListenerContainer#DEFAULT_PHASE}).
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+
+    private void bootstrap() throws Exception {
+        final long t0 = System.nanoTime();
+        final int partitionCount;
+        final List<TopicPartition> missing = new ArrayList<>();
+        final Map<TopicPartition, Long> offsets;
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            partitionCount = admin.describeTopics(List.of(CustomerTopics.EVENTS)).allTopicNames()
+                    .get(30, TimeUnit.SECONDS).get(CustomerTopics.EVENTS).partitions().size();
+            for (int p = 0; p < partitionCount; p++) {
+                final TopicPartition tp = new TopicPartition(CustomerTopics.EVENTS, p);
+                if (store.checkpoint(tp).isEmpty()) missing.add(tp);
+            }
+            if (missing.isEmpty()) return;
+            offsets = endOffsets(admin, missing); // strictly before the snapshot below is taken
+        }
+
+        log.info("Local store has no checkpoint for {} partition(s); loading them from a snapshot", missing.size());
+        try (LocalCustomerStore.Loader loader = store.load(missing, partitionCount);
+             Connection con = openSource()) {
+            con.setAutoCommit(false);
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            con.setReadOnly(true);
+            try (PreparedStatement ps = con.prepareStatement(SNAPSHOT)) {
+                ps.setFetchSize(10_000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        loader.put(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3), rs.getLong(4));
+                    }
+                }
+            } finally {
+                con.rollback();
+            }
+            final long rows = loader.finish(offsets);
+            log.info("Local store loaded {} customers into {} partition(s) in {} ms; resuming at {}",
+                    rows, missing.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0), offsets);
+        }
+    }
+
+    private static Map<TopicPartition, Long> endOffsets(Admin admin, Collection<TopicPartition> partitions) throws Exception {
+        final Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+        partitions.forEach(tp -> request.put(tp, OffsetSpec.latest()));
+        final Map<TopicPartition, Long> out = new HashMap<>();
+        admin.listOffsets(request, new ListOffsetsOptions(IsolationLevel.READ_COMMITTED)).all()
+                .get(30, TimeUnit.SECONDS)
+                .forEach((tp, info) -> out.put(tp, info.offset()));
+        return out;
+    }
+
+    private Connection openSource() throws SQLException {
+        if (source.sourceUrl() == null || source.sourceUrl().isBlank()) {
+            return dataSource.getConnection();
+        }
+        return DriverManager.getConnection(source.sourceUrl(), source.sourceUsername(), source.sourcePassword());
+    }
+}
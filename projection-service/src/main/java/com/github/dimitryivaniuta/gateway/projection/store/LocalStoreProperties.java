@@ -0,0 +1,27 @@
+package com.github.dimitryivaniuta.gateway.projection.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for {@code projection.listener.mode=local} ({@code projection.local.*}).
+ *
+ * @param directory      RocksDB directory; keep it on a persistent volume, or every restart replays the topic
+ * @param blockCacheSize block cache of the customer column family
+ * @param postgresSink   also project into {@code read.customers_view} from a separate consumer group, for email
+ *                       lookups, paging and reads of partitions this instance does not own
+ * @param snapshotBootstrap fill partitions without a checkpoint from a {@code write.customers} snapshot before
+ *                          consuming ({@link LocalStoreBootstrap}); false = replay them from the beginning of the
+ *                          topic, which only holds the last 7 days
+ */
+@ConfigurationProperties(prefix = "projection.local")
+public record LocalStoreProperties(
+        @DefaultValue("data/projection-store") Path directory,
+        @DefaultValue("64MB") DataSize blockCacheSize,
+        @DefaultValue("true") boolean postgresSink,
+        @DefaultValue("true") boolean snapshotBootstrap
+) {
+}
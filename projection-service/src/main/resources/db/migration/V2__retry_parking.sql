@@ -0,0 +1,7 @@
+-- Aggregates that have an event in customers.events.v1.retry. While a row exists, newer events of the aggregate
+-- are forwarded to the retry topic behind it instead of being applied, so per-aggregate order holds.
+create table if not exists read.retry_parking (
+    aggregate_id uuid primary key,
+    last_version bigint not null,             -- newest version sent to the retry topic
+    parked_at timestamptz not null default now()
+);
@@ -0,0 +1,23 @@
+-- Search over read.customers_view (GET /api/customers/search).
+--
+-- Prefix search: btree on lower(col) with text_pattern_ops (byte-wise order, so LIKE 'abc%' becomes an index
+-- range regardless of the database collation), id appended as the keyset tiebreaker.
+-- Fuzzy search: trigram GIN on the same expressions. fastupdate (the default, spelled out here) buffers new
+-- entries in the pending list, so a projected insert/rename costs an append instead of ~one posting-list update
+-- per trigram; vacuum or the list limit merges them in bulk. Updates that only advance the version touch no
+-- indexed column and stay HOT-eligible.
+--
+-- pg_trgm lives in public so its operators resolve with the application's default search_path.
+create extension if not exists pg_trgm with schema public;
+
+create index if not exists customers_view_name_prefix_idx
+    on read.customers_view (lower(name) text_pattern_ops, id);
+
+create index if not exists customers_view_email_prefix_idx
+    on read.customers_view (lower(email) text_pattern_ops, id);
+
+create index if not exists customers_view_name_trgm_idx
+    on read.customers_view using gin (lower(name) public.gin_trgm_ops) with (fastupdate = on);
+
+create index if not exists customers_view_email_trgm_idx
+    on read.customers_view using gin (lower(email) public.gin_trgm_ops) with (fastupdate = on);
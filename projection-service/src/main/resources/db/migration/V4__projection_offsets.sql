@@ -0,0 +1,11 @@
+-- Next offset to consume per consumer group and partition, written in the same transaction as the view changes
+-- it covers. On assignment the listener seeks here (when ahead of the Kafka-committed position), so an event is
+-- applied exactly once even if the Kafka offset commit after the transaction is lost.
+create table if not exists read.projection_offsets (
+    consumer_group varchar(255) not null,
+    topic          varchar(255) not null,
+    partition      int          not null,
+    next_offset    bigint       not null,
+    updated_at     timestamptz  not null default now(),
+    primary key (consumer_group, topic, partition)
+);
@@ -0,0 +1,212 @@
+package com.github.dimitryivaniuta.gateway.projection.repo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionIndexTest {
+
+    private static final int INITIAL_SLOTS = 1024;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void raiseKeepsTheHighestVersion(boolean offHeap) {
+        final VersionIndex index = new VersionIndex(100, offHeap);
+        final UUID id = UUID.randomUUID();
+
+        assertEquals(VersionIndex.ABSENT, get(index, id));
+        assertTrue(raise(index, id, 5));
+        assertTrue(raise(index, id, 3));
+        assertEquals(5, get(index, id));
+        assertTrue(raise(index, id, 7));
+        assertEquals(7, get(index, id));
+        assertTrue(raise(index, id, -1), "negative versions are ignored, not refused");
+        assertEquals(7, get(index, id));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Keys homed in the last slot run over the end of the table into slot 0 and beyond, mixed with keys homed
+     * there; removing any one of them must leave every other one reachable.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void removeBackwardShiftsAcrossTheWrapAround(boolean offHeap) {
+        final VersionIndex probe = new VersionIndex(100, offHeap);
+        final List<UUID> last = keysHomedAt(probe, INITIAL_SLOTS - 1, 4);
+        final List<UUID> first = keysHomedAt(probe, 0, 2);
+        // insertion order interleaves the homes, so some keys sit in their home slot right after the wrap
+        final List<UUID> keys = List.of(last.get(0), first.get(0), last.get(1), last.get(2), first.get(1),
+                keysHomedAt(probe, 1, 1).get(0), last.get(3));
+
+        for (UUID removed : keys) {
+            final VersionIndex index = new VersionIndex(100, offHeap);
+            for (int i = 0; i < keys.size(); i++) {
+                assertTrue(raise(index, keys.get(i), i));
+            }
+
+            index.remove(removed.getMostSignificantBits(), removed.getLeastSignificantBits());
+
+            assertEquals(keys.size() - 1, index.size());
+            assertEquals(VersionIndex.ABSENT, get(index, removed));
+            for (int i = 0; i < keys.size(); i++) {
+                if (keys.get(i) != removed) {
+                    assertEquals(i, get(index, keys.get(i)), "key " + i + " after removing " + keys.indexOf(removed));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void removeOfAnAbsentKeyChangesNothing(boolean offHeap) {
+        final VersionIndex index = new VersionIndex(100, offHeap);
+        final List<UUID> colliding = keysHomedAt(index, 7, 2);
+        raise(index, colliding.get(0), 1);
+
+        index.remove(colliding.get(1).getMostSignificantBits(), colliding.get(1).getLeastSignificantBits());
+
+        assertEquals(1, index.size());
+        assertEquals(1, get(index, colliding.get(0)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void growsPastHalfLoadAndKeepsEveryEntry(boolean offHeap) {
+        final VersionIndex index = new VersionIndex(1 << 16, offHeap);
+        final long initialBytes = index.capacityBytes();
+        final UUID[] ids = new UUID[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID();
+            assertTrue(raise(index, ids[i], i));
+        }
+
+        assertEquals(ids.length, index.size());
+        assertTrue(index.capacityBytes() >= 2L * ids.length * 3 * Long.BYTES, "load stays at or below 50%");
+        assertTrue(index.capacityBytes() > initialBytes);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, get(index, ids[i]));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void refusesNewKeysAtMaxEntriesButStillUpdatesExistingOnes(boolean offHeap) {
+        final VersionIndex index = new VersionIndex(3, offHeap);
+        final UUID a = UUID.randomUUID();
+        final UUID b = UUID.randomUUID();
+        final UUID c = UUID.randomUUID();
+        assertTrue(raise(index, a, 1));
+        assertTrue(raise(index, b, 1));
+        assertTrue(raise(index, c, 1));
+
+        final UUID d = UUID.randomUUID();
+        assertFalse(raise(index, d, 1));
+        assertEquals(VersionIndex.ABSENT, get(index, d));
+        assertTrue(raise(index, a, 2));
+        assertEquals(2, get(index, a));
+        assertEquals(3, index.size());
+
+        index.remove(b.getMostSignificantBits(), b.getLeastSignificantBits());
+        assertTrue(raise(index, d, 1), "a removal frees room for a new key");
+    }
+
+    @Test
+    void rejectsMaxEntriesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new VersionIndex(0, false));
+        assertThrows(IllegalArgumentException.class, () -> new VersionIndex(VersionIndex.MAX_CAPACITY / 2 + 1, false));
+    }
+
+    /**
+     * Random raises and removes over a small key pool (so runs collide and get removed from), against a HashMap.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void matchesAHashMapUnderRandomOperations(boolean offHeap) {
+        final Random random = new Random(42);
+        final UUID[] pool = new UUID[3_000];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        final VersionIndex index = new VersionIndex(1 << 20, offHeap);
+        final Map<UUID, Long> expected = new HashMap<>();
+
+        for (int op = 0; op < 200_000; op++) {
+            final UUID id = pool[random.nextInt(pool.length)];
+            if (random.nextInt(10) < 6) {
+                final long version = random.nextInt(1_000);
+                assertTrue(raise(index, id, version));
+                expected.merge(id, version, Math::max);
+            } else {
+                index.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+                expected.remove(id);
+            }
+            final UUID checked = pool[random.nextInt(pool.length)];
+            assertEquals(expected.getOrDefault(checked, VersionIndex.ABSENT), get(index, checked), "op " + op);
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (UUID id : pool) {
+            assertEquals(expected.getOrDefault(id, VersionIndex.ABSENT), get(index, id));
+        }
+    }
+
+    @Test
+    void heapAndOffHeapAgree() {
+        final Random random = new Random(7);
+        final VersionIndex heap = new VersionIndex(1 << 16, false);
+        final VersionIndex offHeap = new VersionIndex(1 << 16, true);
+        final List<UUID> seen = new ArrayList<>();
+
+        for (int op = 0; op < 50_000; op++) {
+            if (seen.isEmpty() || random.nextInt(4) > 0) {
+                final UUID id = random.nextBoolean() || seen.isEmpty()
+                        ? new UUID(random.nextLong(), random.nextLong())
+                        : seen.get(random.nextInt(seen.size()));
+                final long version = random.nextInt(100);
+                assertEquals(raise(heap, id, version), raise(offHeap, id, version));
+                seen.add(id);
+            } else {
+                final UUID id = seen.get(random.nextInt(seen.size()));
+                heap.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+                offHeap.remove(id.getMostSignificantBits(), id.getLeastSignificantBits());
+            }
+        }
+
+        assertEquals(heap.size(), offHeap.size());
+        assertEquals(heap.capacityBytes(), offHeap.capacityBytes());
+        for (UUID id : seen) {
+            assertEquals(get(heap, id), get(offHeap, id));
+        }
+    }
+
+    private static List<UUID> keysHomedAt(VersionIndex index, int slot, int count) {
+        final Random random = new Random(31L * slot + count);
+        final List<UUID> out = new ArrayList<>(count);
+        while (out.size() < count) {
+            final UUID id = new UUID(random.nextLong(), random.nextLong());
+            if (index.slotOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) == slot) out.add(id);
+        }
+        return out;
+    }
+
+    private static boolean raise(VersionIndex index, UUID id, long version) {
+        return index.raise(id.getMostSignificantBits(), id.getLeastSignificantBits(), version);
+    }
+
+    private static long get(VersionIndex index, UUID id) {
+        return index.get(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+}